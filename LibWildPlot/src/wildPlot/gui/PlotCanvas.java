@@ -31,6 +31,19 @@ public class PlotCanvas extends Canvas implements Runnable {
 	
 	private boolean hasClicked = false;
 	
+	/**
+	 * mouse position of the last press or drag event, used to calculate the pan distance
+	 */
+	private int lastDragX = 0;
+	private int lastDragY = 0;
+	
+	/**
+	 * pixel distance the mouse was dragged since the last cycle
+	 */
+	private int dragDx = 0;
+	private int dragDy = 0;
+	private boolean hasDragged = false;
+	
 	/**
 	 * Probably needed for something
 	 */
@@ -51,13 +64,28 @@ public class PlotCanvas extends Canvas implements Runnable {
 	/**
 	 * logic loop boolean 
 	 */
-	private boolean plotRunning = true;
+	private volatile boolean plotRunning = true;
 
 	/**
 	 * is set to true when window is resized
 	 */
 	private boolean resized = true;
 	
+	/**
+	 * is set to true when the data of the plot has changed, it can be set by any thread
+	 */
+	private volatile boolean hasNewData = false;
+	
+	/**
+	 * lowest and highest x-value of data that was appended since the last cycle, null if there is none
+	 */
+	private double[] changedXRange = null;
+	
+	/**
+	 * if true the plot scrolls to the right when data is appended beyond its right border
+	 */
+	private boolean isFollowing = false;
+	
 	/**
 	 * to access this object in eventhandler this variable is used
 	 */
@@ -93,6 +121,19 @@ public class PlotCanvas extends Canvas implements Runnable {
 			public void mouseClicked(MouseEvent arg0) {
 				PlotCanvas.this.hasClicked = true;
 			}
+			@Override
+			public void mousePressed(MouseEvent arg0) {
+				PlotCanvas.this.lastDragX = arg0.getX();
+				PlotCanvas.this.lastDragY = arg0.getY();
+			}
+		});
+		this.addMouseMotionListener(new MouseMotionAdapter() {
+			@Override
+			public void mouseDragged(MouseEvent arg0) {
+				PlotCanvas.this.addDrag(arg0.getX() - PlotCanvas.this.lastDragX, arg0.getY() - PlotCanvas.this.lastDragY);
+				PlotCanvas.this.lastDragX = arg0.getX();
+				PlotCanvas.this.lastDragY = arg0.getY();
+			}
 		});
 		
 		
@@ -195,6 +236,34 @@ public class PlotCanvas extends Canvas implements Runnable {
 				}
 			}
 
+			//move the plot with the mouse, the plot sheet reuses its last images for this if it is in pan mode
+			int[] drag = takeDrag();
+			if(drag != null && (drag[0] != 0 || drag[1] != 0)) {
+				plotSheet.pan(drag[0], drag[1], field);
+				resized = true;
+			}
+
+			//only the part of the plot with appended data is painted anew, if the data reaches beyond the right border
+			//the plot is scrolled like it is dragged, so the last image is reused
+			double[] changedXRange = takeChangedXRange();
+			if(changedXRange != null) {
+				double[] xRange = plotSheet.getxRange();
+				int plotWidth = field.width - 2*plotSheet.getFrameThickness();
+				if(this.isFollowing && changedXRange[1] > xRange[1] && plotWidth > 0) {
+					int dx = (int)Math.ceil((changedXRange[1] - xRange[1])/(xRange[1] - xRange[0])*plotWidth);
+					plotSheet.pan(-dx, 0, field);
+				}
+				plotSheet.invalidate(changedXRange[0], changedXRange[1]);
+				resized = true;
+			}
+			
+			//data that is loaded in the background has grown, so the plot is rendered anew
+			if(this.hasNewData) {
+				this.hasNewData = false;
+				plotSheet.invalidate();
+				resized = true;
+			}
+
 			//well, this really should not happen, if it happens something with the canvas itself is wrong
 			if(field == null) {
 				System.err.println("This should not happen!");
@@ -340,6 +409,75 @@ public class PlotCanvas extends Canvas implements Runnable {
 		//container.dispose();
 	}
 
+	/**
+	 * render the plot anew in the next cycle because its data has changed, this can be called by any thread
+	 */
+	public void refresh() {
+		this.hasNewData = true;
+	}
+
+	/**
+	 * paint only the part of the plot anew that shows the given x-values because data was appended there,
+	 * this can be called by any thread
+	 * @param xStart lowest x-value of the appended data, including the last point before it if lines connect them
+	 * @param xEnd highest x-value of the appended data
+	 */
+	public synchronized void refresh(double xStart, double xEnd) {
+		if(this.changedXRange == null) {
+			this.changedXRange = new double[] {xStart, xEnd};
+		} else {
+			this.changedXRange[0] = Math.min(this.changedXRange[0], xStart);
+			this.changedXRange[1] = Math.max(this.changedXRange[1], xEnd);
+		}
+	}
+	
+	/**
+	 * adds a mouse movement to the drag that is not applied yet, this is called by the event thread
+	 * @param dx horizontal movement in pixels
+	 * @param dy vertical movement in pixels
+	 */
+	private synchronized void addDrag(int dx, int dy) {
+		this.dragDx += dx;
+		this.dragDy += dy;
+		this.hasDragged = true;
+	}
+	
+	/**
+	 * @return horizontal and vertical movement of the mouse since the last call, null if it was not dragged
+	 */
+	private synchronized int[] takeDrag() {
+		if(!this.hasDragged)
+			return null;
+		int[] drag = {this.dragDx, this.dragDy};
+		this.dragDx = 0;
+		this.dragDy = 0;
+		this.hasDragged = false;
+		return drag;
+	}
+	
+	/**
+	 * @return x-values of the data that was appended since the last call, null if there is none
+	 */
+	private synchronized double[] takeChangedXRange() {
+		double[] changedXRange = this.changedXRange;
+		this.changedXRange = null;
+		return changedXRange;
+	}
+	
+	/**
+	 * scroll the plot to the right when data is appended beyond its right border, the width of the x-range stays the same
+	 */
+	public void setFollowing() {
+		this.isFollowing = true;
+	}
+	
+	/**
+	 * keep the x-range when data is appended (standard behavior)
+	 */
+	public void unsetFollowing() {
+		this.isFollowing = false;
+	}
+
 	public boolean isPlotRunning() {
 		return plotRunning;
 	}
@@ -1,6 +1,7 @@
 package wildPlot.gui;
 
 import java.awt.Color;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Vector;
@@ -10,21 +11,28 @@ import javax.swing.JFrame;
 import wildPlot.parsing.FunctionParser;
 import wildPlot.parsing.SplineInterpolation;
 import wildPlot.rendering.BarGraph;
+import wildPlot.rendering.Drawable;
 import wildPlot.rendering.FunctionDrawer;
 import wildPlot.rendering.Integral;
 import wildPlot.rendering.LinesPoints;
 import wildPlot.rendering.PlotSheet;
 import wildPlot.rendering.PointDrawer2D;
+import wildPlot.rendering.TimeSeriesDrawer;
 import wildPlot.rendering.ReliefDrawer;
 import wildPlot.rendering.XAxis;
 import wildPlot.rendering.XAxisHistoGram;
 import wildPlot.rendering.XGrid;
 import wildPlot.rendering.YAxis;
 import wildPlot.rendering.YGrid;
+import wildPlot.rendering.interfaces.ColumnTable;
 import wildPlot.rendering.interfaces.Function2D;
 import wildPlot.rendering.interfaces.Function3D;
 import wildPlot.rendering.interfaces.FunctionParserWrapper;
+import wildPlot.tools.ArrayColumnTable;
+import wildPlot.tools.GrowingColumnTable;
+import wildPlot.tools.RingColumnTable;
 import wildPlot.tools.TableReader;
+import wildPlot.tools.TimeSeriesBuffer;
 
 /**
  * This class encapsulates most of the functionality of the rendering package and can be used together with the parsing 
@@ -92,18 +100,57 @@ public class PlotControl {
 	
 	private FunctionParser funcParse;
 	private Vector<Function2D> func2DVector 				= new Vector<Function2D>();
-	private Vector<double[][]> pointVector 					= new Vector<double[][]>();
-	private Vector<double[][]> histogramPointVector 		= new Vector<double[][]>();
-	private Vector<double[][]> linesPointVector 			= new Vector<double[][]>();
-	private Vector<double[][]> barGraphVector	 			= new Vector<double[][]>();
+	private Vector<ColumnTable> pointVector 					= new Vector<ColumnTable>();
+	private Vector<ColumnTable> histogramPointVector 		= new Vector<ColumnTable>();
+	private Vector<ColumnTable> linesPointVector 			= new Vector<ColumnTable>();
+	private Vector<ColumnTable> barGraphVector	 			= new Vector<ColumnTable>();
+	private Vector<TimeSeriesBuffer> timeSeriesVector 		= new Vector<TimeSeriesBuffer>();
 	private Vector<Function2D[]> integralVector 			= new Vector<Function2D[]>();
 	private HashMap<Function2D[], double[]> integralLim 	= new HashMap<Function2D[], double[]>();
-	private HashMap<double[][], Boolean> isSpline			= new HashMap<double[][], Boolean>();
+	private HashMap<ColumnTable, Boolean> isSpline			= new HashMap<ColumnTable, Boolean>();
 	private HashMap<Object, Color> colorDef 				= new HashMap<Object, Color>();
 	private Function3D func3D = null;
 	private Thread plotThread = null;
 	private PlotCanvas window = null;
 	
+	/**
+	 * if true point and line tables are read from their files in the background while the plot is shown
+	 */
+	private boolean isStreaming = false;
+	private Vector<TableLoader> tableLoaders 				= new Vector<TableLoader>();
+	
+	/**
+	 * if true tables that are read from files store their values as floats
+	 */
+	private boolean isFloatStorage = false;
+	
+	/**
+	 * if true tables that are read from files are cached in binary sidecars next to them
+	 */
+	private boolean isCaching = true;
+	
+	/**
+	 * number of rows a streamed table is read in before the plot is refreshed
+	 */
+	private static final int STREAM_CHUNK_SIZE = 1 << 14;
+	
+	/**
+	 * number of the newest rows that are shown of tailed table files, 0 if table files are not tailed
+	 */
+	private int tailCapacity = 0;
+	private Vector<TableWatcher> tableWatchers 			= new Vector<TableWatcher>();
+	
+	/**
+	 * milliseconds between two checks of a tailed table file for appended rows
+	 */
+	private static final long TAIL_POLL_INTERVAL = 200;
+	
+	/**
+	 * milliseconds between two checks of the time series for appended points
+	 */
+	private static final long SERIES_POLL_INTERVAL = 50;
+	private Thread seriesWatcherThread = null;
+	
 	/**
 	 * Constructor of PlotControl 
 	 * @param funcParse FunctionParser object used to parse given functions
@@ -222,6 +269,350 @@ public class PlotControl {
 				e.printStackTrace();
 			}
 		}
+		buildPlotSheet();
+		plotSheet.setPanMode();
+		
+		window = new PlotCanvas(plotSheet);
+		plotThread = new Thread(window);
+		plotThread.setPriority(Thread.MIN_PRIORITY);
+		plotThread.start();
+		//EventQueue.invokeLater(window);
+		
+		//streamed tables are drawn while they are read
+		for(TableLoader tableLoader: tableLoaders) {
+			if(tableLoader.thread == null) {
+				tableLoader.thread = new Thread(tableLoader);
+				tableLoader.thread.start();
+			}
+		}
+		
+		//tailed tables and time series are watched as long as the window is open
+		if((!tableWatchers.isEmpty() || !timeSeriesVector.isEmpty()) && !this.xLimitOverride)
+			window.setFollowing();
+		for(TableWatcher tableWatcher: tableWatchers) {
+			tableWatcher.start(window);
+		}
+		if(!timeSeriesVector.isEmpty()) {
+			if(seriesWatcherThread != null) {
+				seriesWatcherThread.interrupt();
+				try {
+					seriesWatcherThread.join();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+			seriesWatcherThread = new Thread(new SeriesWatcher(window));
+			seriesWatcherThread.start();
+		}
+	}
+	
+	/**
+	 * This class checks the time series for appended points while the plot window is open, the plot window only
+	 * paints the part with the appended points anew and scrolls with them.
+	 */
+	private class SeriesWatcher implements Runnable {
+		
+		private PlotCanvas canvas;
+		
+		/**
+		 * @param canvas the window that shows the time series
+		 */
+		public SeriesWatcher(PlotCanvas canvas) {
+			super();
+			this.canvas = canvas;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			long[] seenEnds = new long[timeSeriesVector.size()];
+			try {
+				while(canvas.isPlotRunning()) {
+					for(int k = 0; k < seenEnds.length; k++) {
+						TimeSeriesBuffer buffer = timeSeriesVector.get(k);
+						long end = buffer.getEnd();
+						if(end == seenEnds[k])
+							continue;
+						if(buffer.isSorted()) {
+							//the line to the first appended point starts at the last point that was seen
+							long first = Math.max(buffer.getStart(end), seenEnds[k] - 1);
+							canvas.refresh(buffer.getX(first), buffer.getX(end - 1));
+						} else {
+							canvas.refresh();
+						}
+						seenEnds[k] = end;
+					}
+					Thread.sleep(SERIES_POLL_INTERVAL);
+				}
+			} catch (InterruptedException e) {
+				//a new window watches the time series
+			}
+		}
+	}
+	
+	/**
+	 * read all streamed tables completely, images are rendered only after all data is read
+	 */
+	private void loadTables() {
+		for(TableWatcher tableWatcher: tableWatchers) {
+			tableWatcher.poll();
+		}
+		for(TableLoader tableLoader: tableLoaders) {
+			if(tableLoader.thread == null) {
+				tableLoader.thread = Thread.currentThread();
+				tableLoader.run();
+			} else if(tableLoader.thread != Thread.currentThread()) {
+				try {
+					tableLoader.thread.join();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * This class reads a table file in chunks of rows and appends them to a table that is already drawn. After every chunk
+	 * the limits are extended to the read points and the plot window is refreshed.
+	 */
+	private class TableLoader implements Runnable {
+		
+		private String file;
+		private GrowingColumnTable table = new GrowingColumnTable();
+		
+		/**
+		 * thread that reads the table, null if it is not read yet
+		 */
+		private Thread thread = null;
+		
+		/**
+		 * @param file file that stores the table
+		 */
+		public TableLoader(String file) {
+			super();
+			this.file = file;
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			TableReader tableReader = new TableReader(file);
+			try {
+				TableReader.RowChunkStream rowChunks = tableReader.openRowChunks(STREAM_CHUNK_SIZE);
+				try {
+					double[][] chunk;
+					while((chunk = rowChunks.nextChunk()) != null) {
+						table.append(chunk);
+						if(table.getColumnCount() >= 2)
+							extendLimits(table.getRange(0), table.getRange(1));
+					}
+				} finally {
+					rowChunks.close();
+				}
+			} catch (IOException e) {
+				// the rows read so far stay in the plot
+				e.printStackTrace();
+			} finally {
+				table.finish();
+			}
+		}
+	}
+	
+	/**
+	 * This class polls a table file for appended rows while the plot window is open. The rows are appended to a ring
+	 * buffer that is already drawn, the plot window only paints the part with the appended rows anew and scrolls with
+	 * them. If the appended rows do not fit into the y-range, the limits are extended and the whole plot is painted.
+	 */
+	private class TableWatcher implements Runnable {
+		
+		private TableReader.TableTail tail;
+		private PlotCanvas canvas = null;
+		private Thread thread = null;
+		
+		/**
+		 * @param tail tail of the table file, it is polled once to read the rows that are already in the file
+		 * @throws IOException if the file can not be read
+		 */
+		public TableWatcher(TableReader.TableTail tail) throws IOException {
+			super();
+			this.tail = tail;
+			tail.poll();
+			RingColumnTable table = tail.getTable();
+			if(table.getColumnCount() >= 2)
+				extendLimits(columnRange(table, 0, 0), columnRange(table, 1, 0));
+		}
+		
+		/**
+		 * starts watching the file for the given window, a watcher of an earlier window is stopped first
+		 * @param canvas the window that shows the table
+		 */
+		public void start(PlotCanvas canvas) {
+			if(this.thread != null) {
+				this.thread.interrupt();
+				try {
+					this.thread.join();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+			this.canvas = canvas;
+			this.thread = new Thread(this);
+			this.thread.start();
+		}
+		
+		/**
+		 * reads the appended rows once if the file is not watched
+		 */
+		public void poll() {
+			if(this.thread != null && this.thread.isAlive())
+				return;
+			try {
+				tail.poll();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			RingColumnTable table = tail.getTable();
+			try {
+				while(canvas.isPlotRunning()) {
+					int oldRowCount = table.getRowCount();
+					//the line to the first appended point starts at the last point
+					double lastX = (oldRowCount > 0 && table.getColumnCount() >= 2)? table.get(0, oldRowCount - 1) : Double.NaN;
+					int rows = tail.poll();
+					if(rows < 0) {
+						canvas.refresh();
+					} else if(rows > 0 && table.getColumnCount() >= 2) {
+						int start = table.getRowCount() - Math.min(rows, table.getRowCount());
+						double[] xRange = columnRange(table, 0, start);
+						double[] yRange = columnRange(table, 1, start);
+						double[] plotYRange = plotSheet.getyRange();
+						if(!yLimitOverride && (yRange[0] < plotYRange[0] || yRange[1] > plotYRange[1])) {
+							extendLimits(null, yRange);
+						} else if(xRange[0] <= xRange[1]) {
+							canvas.refresh((lastX < xRange[0])? lastX : xRange[0], xRange[1]);
+						}
+					}
+					Thread.sleep(TAIL_POLL_INTERVAL);
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			} catch (InterruptedException e) {
+				//a new window watches the file
+			}
+		}
+	}
+	
+	/**
+	 * @param table table with the values
+	 * @param column index of the column
+	 * @param start first row
+	 * @return lowest and highest value of the column from the start row on, NaN values are left out
+	 */
+	private static double[] columnRange(RingColumnTable table, int column, int start) {
+		double[] range = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+		for(int row = start; row < table.getRowCount(); row++) {
+			double value = table.get(column, row);
+			if(value < range[0])
+				range[0] = value;
+			if(value > range[1])
+				range[1] = value;
+		}
+		return range;
+	}
+	
+	/**
+	 * extend the limits that are not set by the user so that they include the given ranges and refresh the plot window
+	 * @param xRange lowest and highest x-value, null if the x-limits are kept
+	 * @param yRange lowest and highest y-value
+	 */
+	private synchronized void extendLimits(double[] xRange, double[] yRange) {
+		if(xRange != null && !this.xLimitOverride && xRange[0] <= xRange[1]){
+			xlimits[0] = Math.min(xlimits[0], xRange[0]);
+			xlimits[1] = Math.max(xlimits[1], xRange[1]);
+		}
+		if(!this.yLimitOverride && yRange[0] <= yRange[1]){
+			ylimits[0] = Math.min(ylimits[0], yRange[0]);
+			ylimits[1] = Math.max(ylimits[1], yRange[1]);
+		}
+		if(this.window != null && this.plotSheet != null) {
+			if(xRange != null && !this.xLimitOverride)
+				plotSheet.setxRange(xlimits.clone());
+			if(!this.yLimitOverride)
+				plotSheet.setyRange(ylimits.clone());
+			window.refresh();
+		}
+	}
+	
+	/**
+	 * render the plot with all prior given elements into an image without opening a plot window,
+	 * this works on headless systems too
+	 * @param width width of the image in pixel
+	 * @param height height of the image in pixel
+	 * @param dpi resolution of the image
+	 * @return image of the plot
+	 * @see wildPlot.rendering.PlotSheet#renderImage(int, int, double)
+	 */
+	public BufferedImage render(int width, int height, double dpi) {
+		loadTables();
+		buildPlotSheet();
+		return plotSheet.renderImage(width, height, dpi);
+	}
+	
+	/**
+	 * render the plot with all prior given elements into an image without opening a plot window 
+	 * with the resolution of the plot window
+	 * @param width width of the image in pixel
+	 * @param height height of the image in pixel
+	 * @return image of the plot
+	 */
+	public BufferedImage render(int width, int height) {
+		return render(width, height, PlotSheet.DEFAULT_DPI);
+	}
+	
+	/**
+	 * render the plot with all prior given elements into the given image without opening a plot window,
+	 * the image can be reused for several plots of the same size
+	 * @param image the image the plot is rendered into
+	 * @param dpi resolution of the image
+	 * @see wildPlot.rendering.PlotSheet#renderImage(BufferedImage, double)
+	 */
+	public void render(BufferedImage image, double dpi) {
+		loadTables();
+		buildPlotSheet();
+		plotSheet.renderImage(image, dpi);
+	}
+	
+	/**
+	 * render the plot with all prior given elements without opening a plot window and return its raw pixels
+	 * @param width width of the image in pixel
+	 * @param height height of the image in pixel
+	 * @param dpi resolution of the image
+	 * @return pixels as packed ARGB integers, row by row starting at the upper left corner
+	 * @see wildPlot.rendering.PlotSheet#renderPixels(int, int, double)
+	 */
+	public int[] renderPixels(int width, int height, double dpi) {
+		loadTables();
+		buildPlotSheet();
+		return plotSheet.renderPixels(width, height, dpi);
+	}
+	
+	/**
+	 * create the plot sheet with axes, frame and all drawables for the prior given elements
+	 */
+	private void buildPlotSheet() {
 		plotSheet = new PlotSheet(xlimits[0], xlimits[1], ylimits[0], ylimits[1]);
 		if(this.hasTitle){
 			plotSheet.setTitle(this.plotTitle);
@@ -296,7 +687,7 @@ public class PlotControl {
 			integral.setColor(thisColor.brighter());
 			plotSheet.addDrawable(integral);
 		}
-		for(double[][] points:barGraphVector){
+		for(ColumnTable points:barGraphVector){
 			Color thisColor = colorDef.get(points);
 			BarGraph barGraph = new BarGraph(plotSheet, 1, points, thisColor);
 			barGraph.setFilling(true);
@@ -305,7 +696,7 @@ public class PlotControl {
 			barGraph.setFillColor(thisColor);
 			plotSheet.addDrawable(barGraph);
 		}
-		for(double[][] points:histogramPointVector){
+		for(ColumnTable points:histogramPointVector){
 			Color thisColor = colorDef.get(points);
 			XAxisHistoGram histogram = new XAxisHistoGram(plotSheet, points, 0, 1, thisColor);
 			histogram.setFilling(true);
@@ -314,28 +705,39 @@ public class PlotControl {
 			histogram.setFillColor(thisColor);
 			plotSheet.addDrawable(histogram);
 		}
-		for(double[][] points:this.linesPointVector){
+		for(ColumnTable points:this.linesPointVector){
 			Color thisColor = colorDef.get(points);
 			LinesPoints linesPoints = new LinesPoints(plotSheet, points, thisColor);
 			plotSheet.addDrawable(linesPoints);
 		}
+		for(TimeSeriesBuffer buffer:this.timeSeriesVector){
+			TimeSeriesDrawer timeSeriesDrawer = new TimeSeriesDrawer(plotSheet, buffer, colorDef.get(buffer));
+			plotSheet.addDrawable(timeSeriesDrawer);
+		}
 		for(Function2D func:func2DVector){
 			FunctionDrawer functionDrawer = new FunctionDrawer(func, plotSheet, colorDef.get(func));
 			functionDrawer.setSize(lineThickness);
 			plotSheet.addDrawable(functionDrawer);
 		}
 		
-		for(double[][] points:pointVector){
+		for(ColumnTable points:pointVector){
 			if(this.isSpline.get(points)) {
-				SplineInterpolation interpol = new SplineInterpolation(points[0], points[1]);
-				double leftLimit = points[0][0];
-				double rightLimit = points[0][0];
-				for(int i = 0; i< points[0].length;i++){
-					if(leftLimit > points[0][i]){
-						leftLimit = points[0][i];
+				//the interpolation needs the points in arrays
+				double[] x = new double[points.getRowCount()];
+				double[] y = new double[points.getRowCount()];
+				for(int i = 0; i< x.length;i++){
+					x[i] = points.get(0, i);
+					y[i] = points.get(1, i);
+				}
+				SplineInterpolation interpol = new SplineInterpolation(x, y);
+				double leftLimit = x[0];
+				double rightLimit = x[0];
+				for(int i = 0; i< x.length;i++){
+					if(leftLimit > x[i]){
+						leftLimit = x[i];
 					}
-					if(rightLimit < points[0][i]){
-						rightLimit = points[0][i];
+					if(rightLimit < x[i]){
+						rightLimit = x[i];
 					}
 					
 				}
@@ -358,21 +760,19 @@ public class PlotControl {
 			
 			ReliefDrawer reliefDrawer = new ReliefDrawer(func3DScaleOrder, 200, func3D, plotSheet, true);
 			plotSheet.addDrawable(reliefDrawer);
-			plotSheet.addDrawable(reliefDrawer.getLegend());
+			Drawable reliefLegend = reliefDrawer.getLegend();
+			plotSheet.addDrawable(reliefLegend);
+			//the legend shows the borders the relief computes while it is painted
+			plotSheet.addDependency(reliefLegend, reliefDrawer);
 		}
 		
 		plotSheet.addDrawable(yAxis);
 		plotSheet.addDrawable(xAxis);
-		
-		window = new PlotCanvas(plotSheet);
-		plotThread = new Thread(window);
-		plotThread.setPriority(Thread.MIN_PRIORITY);
-		plotThread.start();
-		//EventQueue.invokeLater(window);
 	}
 	
 	/**
-	 * manually set x-limits for the plot, overrides all automatic calculations
+	 * manually set x-limits for the plot, overrides all automatic calculations,
+	 * tables of points that are added from files afterwards are only read in their first two columns
 	 * @param x0 left bound 
 	 * @param x1 right bound
 	 */
@@ -449,9 +849,22 @@ public class PlotControl {
 	 * @param name name on the legend
 	 */
 	public void tablePlot(String file, String name, boolean isSpline) {
-		TableReader tableReader = new TableReader(file);
+		//the spline interpolation needs all points at once
+		if(this.tailCapacity > 0 && !isSpline) {
+			try {
+				tablePlot(tailTable(file), name, false);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			return;
+		}
+		if(this.isStreaming && !isSpline) {
+			tablePlot(streamTable(file), name, false);
+			return;
+		}
+		TableReader tableReader = createPointReader(file, isSpline);
 		try {
-			tablePlot(tableReader.getPointArray(), name, isSpline);
+			tablePlot(tableReader.getColumnTable(), name, isSpline);
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -464,21 +877,90 @@ public class PlotControl {
 	 * @param name name on the legend
 	 */
 	public void tablePlot(String file, String name) {
-		TableReader tableReader = new TableReader(file);
+		if(this.tailCapacity > 0) {
+			tablePlot(file, name, false);
+			return;
+		}
+		if(this.isStreaming) {
+			tablePlot(streamTable(file), name, false);
+			return;
+		}
+		TableReader tableReader = createPointReader(file, false);
 		try {
-			tablePlot(tableReader.getPointArray(), name, false);
+			tablePlot(tableReader.getColumnTable(), name, false);
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
 	}
 	
+	/**
+	 * create a reader for a table file that stores floats if float storage is set and uses the sidecar of the file
+	 * if caching is set
+	 * @param file file that stores the table
+	 * @return reader of the table
+	 */
+	private TableReader createTableReader(String file) {
+		TableReader tableReader = new TableReader(file);
+		if(this.isFloatStorage)
+			tableReader.setFloat();
+		if(this.isCaching)
+			tableReader.setCached();
+		return tableReader;
+	}
+	
+	/**
+	 * create a reader for a table of points, if the x-limits are set only the first two columns are read,
+	 * the points are drawn from them only. All rows are read, the plot window can be panned and zoomed out of the limits.
+	 * @param file file that stores the table
+	 * @param isSpline if true all columns are read for the spline interpolation
+	 * @return reader of the table
+	 */
+	private TableReader createPointReader(String file, boolean isSpline) {
+		TableReader tableReader = createTableReader(file);
+		if(this.xLimitOverride && !isSpline)
+			tableReader.setProjection(0, 1);
+		return tableReader;
+	}
+	
+	/**
+	 * create a table that is read from the file in the background as soon as the plot is shown
+	 * @param file file that stores the table
+	 * @return the table, it grows while the file is read
+	 */
+	private GrowingColumnTable streamTable(String file) {
+		TableLoader tableLoader = new TableLoader(file);
+		this.tableLoaders.add(tableLoader);
+		return tableLoader.table;
+	}
+	
+	/**
+	 * create a table with the newest rows of the file that is watched for appended rows as long as the plot is shown
+	 * @param file file that stores the table
+	 * @return ring buffer with the newest rows
+	 * @throws IOException if the file can not be read
+	 */
+	private RingColumnTable tailTable(String file) throws IOException {
+		TableWatcher tableWatcher = new TableWatcher(new TableReader(file).openTail(tailCapacity));
+		this.tableWatchers.add(tableWatcher);
+		return tableWatcher.tail.getTable();
+	}
+	
 	/**
 	 * add a table of points as simple points on plot with a given name for the legend
 	 * @param points table with points in array format
 	 * @param name name for legend
 	 */
 	public void tablePlot(double[][] points, String name, boolean isSpline) {
+		tablePlot(new ArrayColumnTable(points), name, isSpline);
+	}
+	
+	/**
+	 * add a table of points as simple points on plot with a given name for the legend
+	 * @param points table with points, it may be stored outside of the heap
+	 * @param name name for legend
+	 */
+	public void tablePlot(ColumnTable points, String name, boolean isSpline) {
 		this.pointVector.add(points);
 		NameList.put(points, name);
 		this.isSpline.put(points, isSpline);
@@ -506,10 +988,12 @@ public class PlotControl {
 	 * @param name
 	 */
 	public void histogram(String file, String name) {
-		TableReader tableReader = new TableReader(file);
-		double[][] histoData = null;
+		TableReader tableReader = createTableReader(file);
+		//the histogram only counts the values of the first column
+		tableReader.setProjection(0);
+		ColumnTable histoData = null;
 		try {
-			histoData = tableReader.getPointArray();
+			histoData = tableReader.getColumnTable();
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -524,6 +1008,14 @@ public class PlotControl {
 	 * @param name
 	 */
 	public void histogram(double[][] points, String name) {
+		histogram(new ArrayColumnTable(points), name);
+	}
+	/**
+	 * add a histogram with the given point table and a name for the legend
+	 * @param points table with points, it may be stored outside of the heap
+	 * @param name
+	 */
+	public void histogram(ColumnTable points, String name) {
 		this.histogramPointVector.add(points);
 		NameList.put(points, name);
 	}
@@ -549,9 +1041,21 @@ public class PlotControl {
 	 * @param name for legend (not yet implemented)
 	 */
 	public void linesPoints(String file, String name) {
-		TableReader tableReader = new TableReader(file);
+		if(this.tailCapacity > 0) {
+			try {
+				linesPoints(tailTable(file), name);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			return;
+		}
+		if(this.isStreaming) {
+			linesPoints(streamTable(file), name);
+			return;
+		}
+		TableReader tableReader = createTableReader(file);
 		try {
-			linesPoints(tableReader.getPointArray(), name);
+			linesPoints(tableReader.getColumnTable(), name);
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -564,6 +1068,15 @@ public class PlotControl {
 	 * @param name for legend (not yet implemented)
 	 */
 	public void linesPoints(double[][] points, String name) {
+		linesPoints(new ArrayColumnTable(points), name);
+	}
+	
+	/**
+	 * draw points and connect them with lines using data from a table
+	 * @param points table with data points, it may be stored outside of the heap
+	 * @param name for legend (not yet implemented)
+	 */
+	public void linesPoints(ColumnTable points, String name) {
 		this.linesPointVector.add(points);
 		NameList.put(points, name);
 		this.colorDef.put(points, gradientColors[colorCnt++%(gradientColors.length)]);
@@ -577,19 +1090,34 @@ public class PlotControl {
 		linesPoints(points, points.toString());
 	}
 	
+	/**
+	 * draw a time series that other threads append points to while it is shown, the plot window scrolls with the
+	 * appended points unless the x-limits are set
+	 * @param buffer buffer the points are appended to
+	 * @param name for legend (not yet implemented)
+	 */
+	public void timeSeries(TimeSeriesBuffer buffer, String name) {
+		this.timeSeriesVector.add(buffer);
+		NameList.put(buffer, name);
+		this.colorDef.put(buffer, gradientColors[colorCnt++%(gradientColors.length)]);
+	}
+	
 	public void barGraph(String file) {
 		barGraph(file, file);
 	}
 	public void barGraph(String file, String name) {
-		TableReader tableReader = new TableReader(file);
+		TableReader tableReader = createTableReader(file);
 		try {
-			barGraph(tableReader.getPointArray(), name);
+			barGraph(tableReader.getColumnTable(), name);
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
 	}
 	public void barGraph(double[][] points, String name) {
+		barGraph(new ArrayColumnTable(points), name);
+	}
+	public void barGraph(ColumnTable points, String name) {
 		this.barGraphVector.add(points);
 		NameList.put(points, name);
 		this.colorDef.put(points, gradientColors[colorCnt++%(gradientColors.length)]);
@@ -755,6 +1283,105 @@ public class PlotControl {
 		this.hasGrid = false;
 	}
 
+	/**
+	 * read point and line tables that are given as file in chunks while the plot is shown, the plot window shows the
+	 * first points as soon as they are read and grows its limits with the data, images are rendered after all data is
+	 * read. This only applies to tables that are added after this call and are not plotted as spline.
+	 */
+	public void setStreaming() {
+		this.isStreaming = true;
+	}
+
+	/**
+	 * read table files completely before the plot is shown (standard behavior)
+	 */
+	public void unsetStreaming() {
+		this.isStreaming = false;
+	}
+
+	/**
+	 * @return true if point and line tables are read while the plot is shown
+	 */
+	public boolean isStreaming() {
+		return isStreaming;
+	}
+
+	/**
+	 * watch point and line tables that are given as file for rows that other processes append to them, the plot window
+	 * shows the newest rows and scrolls with them unless the x-limits are set. Only the part of the plot with the
+	 * appended rows is painted anew, rows that are dropped from the ring buffer stay visible until the whole plot is
+	 * painted. This only applies to tables that are added after this call and are not plotted as spline.
+	 * @param capacity number of the newest rows that are shown of every table
+	 */
+	public void setTailing(int capacity) {
+		if(capacity < 1){
+			System.err.println("PlotControl:Error::Wrong tail capacity (smaller than 1)");
+			System.exit(-1);
+		}
+		this.tailCapacity = capacity;
+	}
+
+	/**
+	 * read table files once (standard behavior)
+	 */
+	public void unsetTailing() {
+		this.tailCapacity = 0;
+	}
+
+	/**
+	 * @return true if point and line tables are watched for appended rows
+	 */
+	public boolean isTailing() {
+		return tailCapacity > 0;
+	}
+
+	/**
+	 * store the values of point, line, histogram and bar tables that are given as file as floats relative to the middle
+	 * of the range of their column, this halves their memory while the precision stays far below a pixel. This only
+	 * applies to tables that are added after this call and are not streamed or tailed.
+	 */
+	public void setFloatStorage() {
+		this.isFloatStorage = true;
+	}
+
+	/**
+	 * store the values of tables as doubles (standard behavior)
+	 */
+	public void unsetFloatStorage() {
+		this.isFloatStorage = false;
+	}
+
+	/**
+	 * @return true if tables that are given as file store floats
+	 */
+	public boolean isFloatStorage() {
+		return isFloatStorage;
+	}
+
+	/**
+	 * cache point, line, histogram and bar tables that are given as file in binary sidecars next to them, so plotting
+	 * an unchanged file again maps the sidecar instead of parsing the file (standard behavior). This only applies to
+	 * tables that are added after this call and are not streamed or tailed.
+	 * @see wildPlot.tools.TableCache
+	 */
+	public void setCaching() {
+		this.isCaching = true;
+	}
+
+	/**
+	 * parse table files every time they are plotted and write no sidecars next to them
+	 */
+	public void unsetCaching() {
+		this.isCaching = false;
+	}
+
+	/**
+	 * @return true if tables that are given as file are cached in sidecars
+	 */
+	public boolean isCaching() {
+		return isCaching;
+	}
+
 	/**
 	 * This is a factor for the distribution of colors for function values of 3d functions.
 	 * Values below 1 are used for more colors in higher regions and above 1 are more colors
@@ -778,8 +1405,11 @@ public class PlotControl {
 	/**
 	 * activate a frame around the plot with a given size in pixel
 	 * @param frameThickness size of frame
+	 * @throws IllegalArgumentException if the size is smaller than 0
 	 */
 	public void setFrame(int frameThickness) {
+		if(frameThickness < 0)
+			throw new IllegalArgumentException("PlotControl:Error::Wrong Frame size (smaller than 0)");
 		this.hasFrame = true;
 		this.frameThickness = frameThickness;
 	}
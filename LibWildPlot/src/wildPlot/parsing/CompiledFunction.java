@@ -0,0 +1,421 @@
+package wildPlot.parsing;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class represents the term of a declared function compiled into a tree of operations. Evaluating the tree
+ * is much faster than parsing the term for every single domain value and does not change any state, so one compiled
+ * function can be evaluated from several threads at once.
+ * The term is compiled with the same grammar the TermParser uses. Terms that contain assignments or undeclared
+ * variables are not compiled, they have to be computed by the TermParser.
+ * The recently compiled functions are cached and shared between all FunctionParser objects.
+ * @see wildPlot.parsing.TermParser
+ *
+ */
+public class CompiledFunction {
+
+	/* Maximum number of cached functions, the least recently used one is dropped first. */
+	private static final int CACHE_SIZE = 256;
+
+	/* Cache of the recently compiled functions, the key consists of the domain variables and the term. */
+	private static final LinkedHashMap<String,CompiledFunction> cache = new LinkedHashMap<String,CompiledFunction>(16, 0.75f, true){
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String,CompiledFunction> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	/* Root of the operation tree. */
+	private Node root;
+
+	/* Names and values of all variables in the term that are no domain variables, their values are compiled into the tree. */
+	private String[] constantNames;
+	private double[] constantValues;
+
+	private CompiledFunction(Node root, String[] constantNames, double[] constantValues){
+		this.root = root;
+		this.constantNames = constantNames;
+		this.constantValues = constantValues;
+	}
+
+	/**
+	 * Returns the compiled function for a term. If a function with the same term and domain variables has already been
+	 * compiled with the same variable values, the cached one is returned.
+	 * @param term the term of the function
+	 * @param variables names of the domain variables
+	 * @param terPars TermParser that stores the values of all other variables
+	 * @return compiled function or null if the term can not be compiled
+	 */
+	public static CompiledFunction compile(String term, String[] variables, TermParser terPars){
+		StringBuilder key = new StringBuilder();
+		for(String variable : variables)
+			key.append(variable).append(',');
+		key.append('=').append(term);
+
+		synchronized (cache) {
+			CompiledFunction compiled = cache.get(key.toString());
+			if(compiled != null && compiled.hasConstantValues(terPars))
+				return compiled;
+		}
+
+		Compiler compiler = new Compiler(term, variables, terPars);
+		CompiledFunction compiled = compiler.compile();
+		if(compiled != null){
+			synchronized (cache) {
+				cache.put(key.toString(), compiled);
+			}
+		}
+		return compiled;
+	}
+
+	/* Checks if all variables compiled into the tree still have the same value. */
+	private boolean hasConstantValues(TermParser terPars){
+		for(int i=0; i<constantNames.length; i++){
+			if(!terPars.containsVar(constantNames[i]) || terPars.getVarValue(constantNames[i]) != constantValues[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * This method computes the image value of the function for a given domain value.
+	 * @param inputVariable domain value
+	 * @return image value
+	 */
+	public double f(double inputVariable){
+		double[] inputVariables = {inputVariable};
+		return root.eval(inputVariables);
+	}
+
+	/**
+	 * This method computes the image value of a 'n'-dimensional function for an array of 'n' domain values.
+	 * @param inputVariables array containing all required domain values
+	 * @return image value
+	 */
+	public double f(double[] inputVariables){
+		return root.eval(inputVariables);
+	}
+
+	/*
+	 * Translates a term into an operation tree. The methods resemble the computation levels of the TermParser,
+	 * but instead of computing a value they return the operation that computes it.
+	 */
+	private static class Compiler {
+
+		private enum token_value {
+			NAME, NUMBER, END, PLUS, MINUS, MUL, DIV, EXP, LOG, PRINT, ASSIGN,  LP, RP
+		};
+
+		private token_value curr_tok = token_value.PRINT;
+		private double number_value = 0;
+		private String string_value = "";
+		private int curr_pos = -1;
+		private String input;
+
+		private String[] variables;
+		private TermParser terPars;
+
+		/* Variables that are no domain variables, their current values are compiled into the tree. */
+		private HashMap<String,Double> constants = new HashMap<String,Double>();
+
+		/* Set as soon as the term turns out to be not compilable. */
+		private boolean failed = false;
+
+		public Compiler(String input, String[] variables, TermParser terPars){
+			this.input = input;
+			this.variables = variables;
+			this.terPars = terPars;
+		}
+
+		public CompiledFunction compile(){
+			Node root;
+			try{
+				root = expr(true);
+			} catch(NumberFormatException e){
+				return null;
+			}
+			if(failed || curr_tok != token_value.END) return null;
+
+			String[] constantNames = constants.keySet().toArray(new String[constants.size()]);
+			double[] constantValues = new double[constantNames.length];
+			for(int i=0; i<constantNames.length; i++)
+				constantValues[i] = constants.get(constantNames[i]);
+			return new CompiledFunction(root, constantNames, constantValues);
+		}
+
+		/* Same tokens as TermParser::getToken(). */
+		private void getToken(){
+			boolean primaryFirst=false;
+			boolean primaryIsReal=false;
+			boolean checkedPrimaryType=false;
+
+			while(true){
+				curr_pos++;
+				if(curr_pos>input.length()-1){
+					curr_tok=token_value.END;
+					break;
+				}
+				char current = input.charAt(curr_pos);
+				token_value operator = null;
+				switch(current){
+					case '+': operator = token_value.PLUS; break;
+					case '-': operator = token_value.MINUS; break;
+					case '*': operator = token_value.MUL; break;
+					case '/': operator = token_value.DIV; break;
+					case '(': operator = token_value.LP; break;
+					case ')': operator = token_value.RP; break;
+					case '^': operator = token_value.EXP; break;
+					case '_': operator = token_value.LOG; break;
+					case '=': operator = token_value.ASSIGN; break;
+				}
+				if(operator != null){
+					if(!primaryFirst) curr_tok = operator;
+					else curr_pos--;
+					break;
+				}
+				else{
+					if(!checkedPrimaryType){
+						checkedPrimaryType=true;
+						if(current >= '0' && current <= '9') primaryIsReal=true;
+						string_value="";
+					}
+					primaryFirst=true;
+					string_value+=current;
+				}
+			}
+
+			if(primaryFirst){
+				if(primaryIsReal){
+					number_value = Double.parseDouble(string_value);
+					curr_tok=token_value.NUMBER;
+				}
+				else{
+					curr_tok=token_value.NAME;
+				}
+			}
+		}
+
+		/* Sum level, see TermParser::expr(). */
+		private Node expr(boolean get){
+			Node left = term(get);
+			for(;;){
+				switch(curr_tok){
+					case PLUS:{
+						left = Binary.create(Binary.ADD, left, term(true));
+						break;
+					}
+					case MINUS:{
+						left = Binary.create(Binary.SUB, left, term(true));
+						break;
+					}
+					default:{
+						return left;
+					}
+				}
+			}
+		}
+
+		/* Product level, see TermParser::term(). */
+		private Node term(boolean get){
+			Node left = pot(get);
+			for(;;){
+				switch(curr_tok){
+					case MUL:{
+						left = Binary.create(Binary.MUL, left, pot(true));
+						break;
+					}
+					case DIV:{
+						left = Binary.create(Binary.DIV, left, pot(true));
+						break;
+					}
+					default:{
+						return left;
+					}
+				}
+			}
+		}
+
+		/* Exponentiation and logarithm level, see TermParser::pot(). */
+		private Node pot(boolean get){
+			Node left = prim(get);
+			for(;;){
+				switch(curr_tok){
+					case EXP:{
+						left = Binary.create(Binary.POW, left, prim(true));
+						break;
+					}
+					case LOG:{
+						left = Binary.create(Binary.LOG, left, prim(true));
+						break;
+					}
+					default:{
+						return left;
+					}
+				}
+			}
+		}
+
+		/* Primary level, see TermParser::prim(). */
+		private Node prim(boolean get){
+			if(get) getToken();
+			switch(curr_tok){
+				case NUMBER:{
+					double val = number_value;
+					getToken();
+					return new Constant(val);
+				}
+				case NAME:{
+					if     (string_value.equals("cos"))		return Unary.create(Unary.COS, prim(true));
+					else if(string_value.equals("sin"))		return Unary.create(Unary.SIN, prim(true));
+					else if(string_value.equals("tan"))		return Unary.create(Unary.TAN, prim(true));
+					else if(string_value.equals("acos"))	return Unary.create(Unary.ACOS, prim(true));
+					else if(string_value.equals("asin"))	return Unary.create(Unary.ASIN, prim(true));
+					else if(string_value.equals("atan"))	return Unary.create(Unary.ATAN, prim(true));
+					else if(string_value.equals("cosh"))	return Unary.create(Unary.COSH, prim(true));
+					else if(string_value.equals("sinh"))	return Unary.create(Unary.SINH, prim(true));
+					else if( string_value.equals("log") ||
+						string_value.equals("lg") )			return Unary.create(Unary.LG, prim(true));
+					else if(string_value.equals("ln"))		return Unary.create(Unary.LN, prim(true));
+					else{
+						String key = string_value;
+						getToken();
+						// assignments change the variables and have to be done by the TermParser
+						if(curr_tok == token_value.ASSIGN){
+							failed = true;
+							return new Constant(Double.NaN);
+						}
+						// the last domain variable of the same name is the one that is set by the FunctionParser
+						for(int i=variables.length-1; i>=0; i--){
+							if(variables[i].equals(key)) return new Variable(i);
+						}
+						if(!terPars.containsVar(key)){
+							failed = true;
+							return new Constant(Double.NaN);
+						}
+						double val = terPars.getVarValue(key);
+						constants.put(key, val);
+						return new Constant(val);
+					}
+				}
+				case MINUS:{
+					return Unary.create(Unary.NEG, prim(true));
+				}
+				case LP:{
+					Node ex = expr(true);
+					if(curr_tok != token_value.RP){
+						failed = true;
+						return ex;
+					}
+					getToken();
+					return ex;
+				}
+				default:{
+					failed = true;
+				}
+			}
+			return new Constant(Double.NaN);
+		}
+	}
+
+	/* An operation of the tree. */
+	private static abstract class Node {
+		public abstract double eval(double[] inputVariables);
+	}
+
+	private static class Constant extends Node {
+		private double value;
+
+		public Constant(double value){
+			this.value = value;
+		}
+
+		public double eval(double[] inputVariables){
+			return value;
+		}
+	}
+
+	private static class Variable extends Node {
+		private int index;
+
+		public Variable(int index){
+			this.index = index;
+		}
+
+		public double eval(double[] inputVariables){
+			return (index < inputVariables.length)? inputVariables[index] : Double.NaN;
+		}
+	}
+
+	private static class Unary extends Node {
+		public static final int NEG=0, COS=1, SIN=2, TAN=3, ACOS=4, ASIN=5, ATAN=6, COSH=7, SINH=8, LG=9, LN=10;
+
+		private int operation;
+		private Node argument;
+
+		private Unary(int operation, Node argument){
+			this.operation = operation;
+			this.argument = argument;
+		}
+
+		/* Creates the operation, operations on constants are computed right away. */
+		public static Node create(int operation, Node argument){
+			Node node = new Unary(operation, argument);
+			return (argument instanceof Constant)? new Constant(node.eval(null)) : node;
+		}
+
+		public double eval(double[] inputVariables){
+			double value = argument.eval(inputVariables);
+			switch(operation){
+				case NEG:	return -value;
+				case COS:	return Math.cos(value);
+				case SIN:	return Math.sin(value);
+				case TAN:	return Math.tan(value);
+				case ACOS:	return Math.acos(value);
+				case ASIN:	return Math.asin(value);
+				case ATAN:	return Math.atan(value);
+				case COSH:	return Math.cosh(value);
+				case SINH:	return Math.sinh(value);
+				case LG:	return Math.log10(value);
+				default:	return Math.log(value);
+			}
+		}
+	}
+
+	private static class Binary extends Node {
+		public static final int ADD=0, SUB=1, MUL=2, DIV=3, POW=4, LOG=5;
+
+		private int operation;
+		private Node left;
+		private Node right;
+
+		private Binary(int operation, Node left, Node right){
+			this.operation = operation;
+			this.left = left;
+			this.right = right;
+		}
+
+		/* Creates the operation, operations on constants are computed right away. */
+		public static Node create(int operation, Node left, Node right){
+			Node node = new Binary(operation, left, right);
+			return (left instanceof Constant && right instanceof Constant)? new Constant(node.eval(null)) : node;
+		}
+
+		public double eval(double[] inputVariables){
+			double l = left.eval(inputVariables);
+			double r = right.eval(inputVariables);
+			switch(operation){
+				case ADD:	return l + r;
+				case SUB:	return l - r;
+				case MUL:	return l * r;
+				// division by 0 and logarithm of a negative number are invalid, as in the TermParser
+				case DIV:	return (r != 0)? l / r : Double.NaN;
+				case POW:	return Math.pow(l, r);
+				default:	return (l >= 0)? Math.log(l)/Math.log(r) : Double.NaN;
+			}
+		}
+	}
+}
@@ -31,6 +31,12 @@ public class FunctionParser {
 	
 	/* The internal TermParser object used for term computation. */
 	TermParser terPars;
+	
+	/* Compiled terms of the declared functions, null for functions that can not be compiled. */
+	private HashMap<String,CompiledFunction> compiledFunctions = new HashMap<String,CompiledFunction>();
+	
+	/* Is increased whenever functions or variables may have changed, compiled functions of older versions are outdated. */
+	private volatile int version = 0;
 
 	/**
 	 * Constructor to initialize a new FunctionParser object
@@ -52,6 +58,7 @@ public class FunctionParser {
 	public boolean parse(String input){
 		double result = Double.NaN;
 		boolean action = false;
+		invalidateCompiledFunctions();
 		
 		if(input.contains(")=")){
 			String[] assignment = input.split("=");
@@ -94,6 +101,8 @@ public class FunctionParser {
 	 * @return image value
 	 */
 	public double getFunctionOutput(String functionName, double inputVariable){
+		CompiledFunction compiled = getCompiledFunction(functionName);
+		if(compiled != null) return compiled.f(inputVariable);
 		terPars.setVar(functionVariables.get(functionName)[0], inputVariable);
 		return terPars.parse( functionTerms.get(functionName) );
 	}
@@ -105,11 +114,44 @@ public class FunctionParser {
 	 * @return image value
 	 */
 	public double getFunctionOutput(String functionName, double[] inputVariables){
+		CompiledFunction compiled = getCompiledFunction(functionName);
+		if(compiled != null) return compiled.f(inputVariables);
 		for(int i=0; i<inputVariables.length; i++) 
 			terPars.setVar(functionVariables.get(functionName)[i], inputVariables[i]);
 		return terPars.parse( functionTerms.get(functionName) );
 	}
 	
+	/**
+	 * Returns the compiled term of a declared function. Compiled functions do not use the TermParser and may be 
+	 * evaluated from several threads at once. The function has to be requested again when getVersion() changed.
+	 * @param functionName name of the function
+	 * @return compiled function or null if the function is not declared or can not be compiled
+	 * @see wildPlot.parsing.CompiledFunction
+	 */
+	public synchronized CompiledFunction getCompiledFunction(String functionName){
+		if(compiledFunctions.containsKey(functionName))
+			return compiledFunctions.get(functionName);
+		CompiledFunction compiled = null;
+		if(functionTerms.containsKey(functionName))
+			compiled = CompiledFunction.compile(functionTerms.get(functionName), functionVariables.get(functionName), terPars);
+		compiledFunctions.put(functionName, compiled);
+		return compiled;
+	}
+	
+	/**
+	 * Returns the current version of the declared functions and variables, it changes with every parsed input.
+	 * @return version number
+	 */
+	public int getVersion(){
+		return version;
+	}
+	
+	/* Every parsed input may declare functions or assign variables, so compiled functions have to be compiled again. */
+	private synchronized void invalidateCompiledFunctions(){
+		compiledFunctions.clear();
+		version++;
+	}
+	
 	/**
 	 * This method computes and prints the image value of a 'n'-dimensional function for an array of 'n' domain 
 	 * values if the given function has already been declared.
@@ -1,5 +1,7 @@
 package wildPlot.parsing;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.util.Scanner;
 import java.util.Vector;
 
@@ -25,6 +27,9 @@ public class ProgramParser {
 	/* The number of unnamed functions that are used in the plot */
 	private int temporaryFunctionCount=0;
 	
+	/* Determines whether plots are shown in a window or only rendered on request without any window. */
+	private boolean isHeadless = false;
+	
 	/* Determines whether the process should keep / is running or not. */
 	private static boolean programRunning = true;
 	
@@ -81,6 +86,17 @@ public class ProgramParser {
 		pCtrl = new PlotControl(fParse);
 	}
 	
+	/**
+	 * Constructor to initialize a new ProgrammParser object that may run without any window. In headless mode plot
+	 * commands only add elements to the plot, the plot is rendered with the PlotControl afterwards.
+	 * @param isHeadless true if no plot window should be opened
+	 * @see wildPlot.gui.PlotControl#render(int, int, double)
+	 */
+	public ProgramParser(boolean isHeadless){
+		this();
+		this.isHeadless = isHeadless;
+	}
+	
 	/**
 	 * Returns the PlotController
 	 * @return
@@ -140,6 +156,21 @@ public class ProgramParser {
 		return fineForm;
 	}
 	
+	/**
+	 * Parses a whole script line by line like it was entered on the prompt. The script ends at its last line or
+	 * at an exit command.
+	 * @param script reader for the script
+	 * @throws IOException
+	 */
+	public void parseScript(BufferedReader script) throws IOException{
+		String line;
+		while((line = script.readLine()) != null){
+			String input = fineForm(line);
+			if(input.equals("quit") || input.equals("exit")) break;
+			parse(input);
+		}
+	}
+	
 	/**
 	 * The top level parsing method handling input strings in fine form. If the input is no bracket-less command
 	 * the program tries to execute it as bracket-dependent command. If this fails the input is handled as a new
@@ -149,6 +180,7 @@ public class ProgramParser {
 	public void parse(String input){
 		if(input == null || input.length()<1) return;
 		if(input.equals("quit") || input.equals("exit")) {
+			if(isHeadless) return;
 			programRunning = false;
 			pCtrl.stop();
 			JFrame container = pCtrl.getJFrame();
@@ -156,11 +188,7 @@ public class ProgramParser {
 				container.dispose();
 		}
 		else if(input.equals("replot")){
-			pCtrl.stop();
-			JFrame container = pCtrl.getJFrame();
-			if(container != null)
-				container.dispose();
-			pCtrl.start();
+			replot();
 		}
 		else if(input.equals("help")) System.out.println(infoText);
 		else if(!processCommand(input)){
@@ -168,6 +196,19 @@ public class ProgramParser {
 		}
 	}
 
+	/**
+	 * Shows the plot with all elements given so far in a new window, the old window is closed.
+	 * In headless mode nothing is shown.
+	 */
+	private void replot(){
+		if(isHeadless) return;
+		pCtrl.stop();
+		JFrame container = pCtrl.getJFrame();
+		if(container != null)
+			container.dispose();
+		pCtrl.start();
+	}
+	
 	/**
 	 * This method tries to handle the input as a bracket-dependent command and reads out the information contained in the brackets.
 	 * If a bracket is missing and the method fails to process the command, it will return false. Otherwise it processes the command and returns true.
@@ -221,11 +262,7 @@ public class ProgramParser {
 					}
 				}
 			}
-			pCtrl.stop();
-			JFrame container = pCtrl.getJFrame();
-			if(container != null)
-				container.dispose();
-			pCtrl.start();
+			replot();
 			return true;
 		}
 		else if(command.equals("interpol")){
@@ -237,11 +274,7 @@ public class ProgramParser {
 					//TODO a warning might be in order
 				}
 			}
-			pCtrl.stop();
-			JFrame container = pCtrl.getJFrame();
-			if(container != null)
-				container.dispose();
-			pCtrl.start();
+			replot();
 			return true;
 		}
 		else if(command.equals("xlim")){
@@ -380,11 +413,7 @@ public class ProgramParser {
 				if(arg.contains("\""))	pCtrl.linesPoints(arg.replace("\"", ""));
 				else					return false;
 			}
-			pCtrl.stop();
-			JFrame container = pCtrl.getJFrame();
-			if(container != null)
-				container.dispose();
-			pCtrl.start();
+			replot();
 			return true;
 		}
 		else if(command.equalsIgnoreCase("histogram")){
@@ -392,11 +421,7 @@ public class ProgramParser {
 				if(arg.contains("\""))	pCtrl.histogram(arg.replace("\"", ""));
 				else					return false;
 			}
-			pCtrl.stop();
-			JFrame container = pCtrl.getJFrame();
-			if(container != null)
-				container.dispose();
-			pCtrl.start();
+			replot();
 			return true;
 		}
 		else if(command.equalsIgnoreCase("bargraph")){
@@ -404,22 +429,14 @@ public class ProgramParser {
 				if(arg.contains("\""))	pCtrl.barGraph(arg.replace("\"", ""));
 				else					return false;
 			}
-			pCtrl.stop();
-			JFrame container = pCtrl.getJFrame();
-			if(container != null)
-				container.dispose();
-			pCtrl.start();
+			replot();
 			return true;
 		}
 		else if(command.equalsIgnoreCase("splot")){
 			for(String arg:arguments){
 				pCtrl.splot(arg,-10,10);
 			}
-			pCtrl.stop();
-			JFrame container = pCtrl.getJFrame();
-			if(container != null)
-				container.dispose();
-			pCtrl.start();
+			replot();
 			return true;
 		}
 		else if(command.equalsIgnoreCase("integral")){
@@ -448,11 +465,7 @@ public class ProgramParser {
 				System.err.println("Invalid number of arguments");
 				return false;
 			}
-			pCtrl.stop();
-			JFrame container = pCtrl.getJFrame();
-			if(container != null)
-				container.dispose();
-			pCtrl.start();
+			replot();
 			return true;
 		}
 		else if(command.equalsIgnoreCase("setFrame")){
@@ -464,6 +477,10 @@ public class ProgramParser {
 					System.err.println("Invalid pixel size for frame border");
 					return false;
 				}
+				if(x0 < 0){
+					System.err.println("Invalid pixel size for frame border");
+					return false;
+				}
 				pCtrl.setFrame(x0);
 				return true;
 			}else {
@@ -85,6 +85,15 @@ public class TermParser {
 		return var_map.get(variableName);
 	}
 	
+	/**
+	 * Checks if a variable of the given name has already been declared.
+	 * @param variableName
+	 * @return
+	 */
+	public boolean containsVar(String variableName){
+		return var_map.containsKey(variableName);
+	}
+	
 	/**
 	 * This method parses terms or variable declarations represented by an input String. Variable declaration
 	 * information is stored and the input value is returned while term values are computed first and then returned.
@@ -9,7 +9,6 @@ import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
 import java.util.Vector;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -25,15 +24,24 @@ public class AdvancedPlotSheet extends PlotSheet implements Runnable{
 	private ReentrantLock reentrantLock = new ReentrantLock();
 	private boolean pictureIsConstructed = false;
 	BufferedImage plotImage = null;
-	private boolean operationIsAborted = false;
+	private volatile boolean operationIsAborted = false;
 	private Rectangle field;
 	private boolean isLogX = false;
 	
 	private boolean isLogY = false;
 	private boolean hasTitle = false;
-	private boolean hasFirstPixelSkipSet = false;
-	private int firstPixelSkip = 20;
-	private ReliefDrawer reliefDrawer = null;
+	
+	/**
+	 * time in milliseconds after which the first plot image is constructed from the drawables that have finished
+	 * their first level of detail, even if others are still painting
+	 */
+	private long latencyBudget = 100;
+	
+	/**
+	 * drawable runnables notify this monitor when they have painted a level of detail or finished
+	 */
+	private final Object progressLock = new Object();
+	private boolean hasProgress = false;
 	
 	/**
 	 * title of plotSheet
@@ -111,24 +119,28 @@ public class AdvancedPlotSheet extends PlotSheet implements Runnable{
 	public void run() {
 		operationIsAborted = false;
 		pictureIsConstructed = false;
-		HashMap<Thread, DrawableDrawingRunnable> allDrawableDirectory = new HashMap<Thread, AdvancedPlotSheet.DrawableDrawingRunnable>();
+		synchronized (progressLock) {
+			hasProgress = false;
+		}
 		this.currentScreen = 0;
 		
+		Vector<DrawableDrawingRunnable> allDrawables = new Vector<DrawableDrawingRunnable>();
 		Vector<DrawableDrawingRunnable> offFrameDrawables = new Vector<DrawableDrawingRunnable>();
 		Vector<DrawableDrawingRunnable> onFrameDrawables = new Vector<DrawableDrawingRunnable>();
 		BufferedImage bufferedFrameImage = new BufferedImage(field.width, field.height, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D gFrame = bufferedFrameImage.createGraphics();
 		gFrame.setClip(field);
 		gFrame.setColor(Color.BLACK);
-		Thread[] threads = new Thread[this.screenParts.get(currentScreen).getDrawables().size()]; 
-		int i = 0;
+		Vector<Thread> threads = new Vector<Thread>();
+		long firstFrameTime = System.currentTimeMillis() + latencyBudget;
 		
 		if(this.screenParts.get(currentScreen).getDrawables() != null && this.screenParts.get(currentScreen).getDrawables().size() != 0) {
 			for(Drawable draw : this.screenParts.get(currentScreen).getDrawables()) {
 				DrawableDrawingRunnable drawableDrawingRunnable = new DrawableDrawingRunnable(draw, field);
-				threads[i] = new Thread( drawableDrawingRunnable);
-				allDrawableDirectory.put(threads[i],drawableDrawingRunnable );
-				threads[i++].start();
+				Thread thread = new Thread(drawableDrawingRunnable);
+				threads.add(thread);
+				allDrawables.add(drawableDrawingRunnable);
+				thread.start();
 				if(!draw.isOnFrame()) {
 					offFrameDrawables.add(drawableDrawingRunnable);
 				} else {
@@ -183,20 +195,34 @@ public class AdvancedPlotSheet extends PlotSheet implements Runnable{
 		}
 		gFrame.dispose();
 		
-		boolean finished = true;
-		do{
-			//TODO give this abort message to all drawingRunnable for them to handle this event
-			if(operationIsAborted){
-				if(hasFirstPixelSkipSet){
-					this.reliefDrawer.setPixelSkip(firstPixelSkip);
-					this.reliefDrawer.abortAndReset();
+		boolean isFirstFrame = true;
+		boolean finished = false;
+		while(!finished){
+			//the first image is constructed when every drawable has painted its first level or the latency budget is
+			//used up, every later image when a drawable has painted a finer level
+			synchronized (progressLock) {
+				while(!operationIsAborted) {
+					if(hasProgress && (!isFirstFrame || hasAllImages(allDrawables)))
+						break;
+					long waitingTime = (isFirstFrame)? firstFrameTime - System.currentTimeMillis() : 0;
+					if(isFirstFrame && waitingTime <= 0)
+						break;
+					try {
+						progressLock.wait(waitingTime);
+					} catch (InterruptedException e) {
+						e.printStackTrace();
+					}
 				}
+				hasProgress = false;
+			}
+			
+			if(operationIsAborted){
 				for(Drawable draw : this.screenParts.get(currentScreen).getDrawables()) {
 					draw.abortAndReset();
 				}
-				for(i=0; i<threads.length; i++ ){
+				for(Thread thread : threads){
 					try {
-						threads[i].join();
+						thread.join();
 					} catch (InterruptedException e) {
 						// TODO Auto-generated catch block
 						e.printStackTrace();
@@ -204,76 +230,28 @@ public class AdvancedPlotSheet extends PlotSheet implements Runnable{
 				}
 				return;
 			}
+			isFirstFrame = false;
 			
 			finished = true;
-			for(i=0; i<threads.length; i++ ){
-				DrawableDrawingRunnable currentDrawableRunnable = allDrawableDirectory.get(threads[i]);
-				if (currentDrawableRunnable.hasFinished()) {
-					if(!currentDrawableRunnable.hasJoined()){
-						Drawable drawable = currentDrawableRunnable.getDrawable();
-						if(drawable instanceof ReliefDrawer){
-							reliefDrawer = (ReliefDrawer)drawable;
-							if(!this.hasFirstPixelSkipSet){
-								this.firstPixelSkip = reliefDrawer.getPixelSkip();
-								hasFirstPixelSkipSet = true;
-							}
-							if(reliefDrawer.getPixelSkip() == 1){
-								try {
-									threads[i].join();
-								} catch (InterruptedException e) {
-									// TODO Auto-generated catch block
-									e.printStackTrace();
-								}
-								currentDrawableRunnable.hasJoined = true;
-							} else {
-								reliefDrawer.setPixelSkip(reliefDrawer.getPixelSkip() -1);
-								try {
-									threads[i].join();
-								} catch (InterruptedException e) {
-									// TODO Auto-generated catch block
-									e.printStackTrace();
-								}
-								BufferedImage oldReliefImage = currentDrawableRunnable.getBufferedDrawableImage();
-								currentDrawableRunnable.setBufferedOldDrawableImage(oldReliefImage);
-								threads[i] = new Thread(currentDrawableRunnable);
-								threads[i].start();
-								allDrawableDirectory.put(threads[i], currentDrawableRunnable);
-								finished = false;
-							}
-							
-						}else{
-							try {
-								threads[i].join();
-							} catch (InterruptedException e) {
-								// TODO Auto-generated catch block
-								e.printStackTrace();
-							}
-							currentDrawableRunnable.hasJoined = true;
-						}
-					}
-					
-				} else {
+			for(DrawableDrawingRunnable drawableRunnable : allDrawables){
+				if(!drawableRunnable.hasFinished())
 					finished = false;
-				}
 			}
+			
 			BufferedImage buffTempImage = new BufferedImage(field.width, field.height, BufferedImage.TYPE_INT_ARGB);
 			Graphics2D g =  buffTempImage.createGraphics();
 			g.setClip(field);
 			
 			for(DrawableDrawingRunnable offFrameDrawable : offFrameDrawables){
-				if(offFrameDrawable.hasJoined)
-					g.drawImage(offFrameDrawable.getBufferedDrawableImage(), null, 0, 0);
-				else if(offFrameDrawable.getBufferedOldDrawableImage() != null)
-					g.drawImage(offFrameDrawable.getBufferedOldDrawableImage(), null, 0, 0);
-				
-					
+				BufferedImage drawableImage = offFrameDrawable.getBufferedDrawableImage();
+				if(drawableImage != null)
+					g.drawImage(drawableImage, null, 0, 0);
 			}
 			g.drawImage(bufferedFrameImage, null, 0, 0);
 			for(DrawableDrawingRunnable onFrameDrawable : onFrameDrawables){
-				if(onFrameDrawable.hasJoined)
-					g.drawImage(onFrameDrawable.getBufferedDrawableImage(), null, 0, 0);
-				else if(onFrameDrawable.getBufferedOldDrawableImage() != null)
-					g.drawImage(onFrameDrawable.getBufferedOldDrawableImage(), null, 0, 0);
+				BufferedImage drawableImage = onFrameDrawable.getBufferedDrawableImage();
+				if(drawableImage != null)
+					g.drawImage(drawableImage, null, 0, 0);
 			}
 			g.dispose();
 			
@@ -281,15 +259,56 @@ public class AdvancedPlotSheet extends PlotSheet implements Runnable{
 			this.plotImage = buffTempImage;
 			reentrantLock.unlock();
 			
-		}while(!finished);
-		if(hasFirstPixelSkipSet){
-			this.reliefDrawer.setPixelSkip(firstPixelSkip);
+		}
+		for(Thread thread : threads){
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				// TODO Auto-generated catch block
+				e.printStackTrace();
+			}
 		}
 		pictureIsConstructed = true;
 		
 	}
+	
+	/**
+	 * @return true if every drawable has painted at least its first level of detail
+	 */
+	private boolean hasAllImages(Vector<DrawableDrawingRunnable> drawableRunnables) {
+		for(DrawableDrawingRunnable drawableRunnable : drawableRunnables){
+			if(drawableRunnable.getBufferedDrawableImage() == null && !drawableRunnable.hasFinished())
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * called by the drawable runnables when they have painted a level of detail or finished
+	 */
+	private void reportProgress() {
+		synchronized (progressLock) {
+			hasProgress = true;
+			progressLock.notifyAll();
+		}
+	}
+	
 	public void abortOperation(){
 		this.operationIsAborted = true;
+		reportProgress();
+	}
+	
+	/**
+	 * sets the time after which the first plot image is constructed, drawables that have not painted their first
+	 * level of detail until then are missing in it
+	 * @param latencyBudget time in milliseconds
+	 */
+	public void setLatencyBudget(long latencyBudget) {
+		if(latencyBudget < 0){
+			System.err.println("AdvancedPlotSheet:Error::Wrong latency budget (smaller than 0)");
+			System.exit(-1);
+		}
+		this.latencyBudget = latencyBudget;
 	}
 	
 	/**
@@ -512,13 +531,12 @@ public class AdvancedPlotSheet extends PlotSheet implements Runnable{
 	/**
 	 * set the size of the outer frame in pixel
 	 * @param frameThickness new size for the outer frame in pixel
+	 * @throws IllegalArgumentException if the size is smaller than 0
 	 */
 	@Override
 	public void setFrameThickness(int frameThickness) {
-		if(frameThickness < 0){
-			System.err.println("PlotSheet:Error::Wrong Frame size (smaller than 0)");
-			System.exit(-1);
-		}
+		if(frameThickness < 0)
+			throw new IllegalArgumentException("PlotSheet:Error::Wrong Frame size (smaller than 0)");
 		this.frameThickness = frameThickness;
 	}
 	
@@ -650,11 +668,12 @@ public class AdvancedPlotSheet extends PlotSheet implements Runnable{
 	private class DrawableDrawingRunnable implements Runnable {
 		
 		private Drawable drawable;
-		private boolean hasFinished = false;
-		private boolean hasJoined = false;
+		private volatile boolean hasFinished = false;
 		
-		private BufferedImage bufferedDrawableImage;
-		private BufferedImage bufferedOldDrawableImage = null;
+		/**
+		 * image of the finest level of detail that is painted completely, null until the first level is painted
+		 */
+		private volatile BufferedImage bufferedDrawableImage = null;
 		private Rectangle field;
 
 		public DrawableDrawingRunnable(Drawable drawable, Rectangle field) {
@@ -667,14 +686,52 @@ public class AdvancedPlotSheet extends PlotSheet implements Runnable{
 
 		@Override
 		public void run() {
-			bufferedDrawableImage = new BufferedImage(field.width, field.height, BufferedImage.TYPE_INT_ARGB);
-			Graphics2D g = bufferedDrawableImage.createGraphics();
+			try {
+				if(drawable instanceof ProgressiveDrawable) {
+					ProgressiveDrawable progressiveDrawable = (ProgressiveDrawable)drawable;
+					//a relief is refined further than its pixel skip, down to its progressive pixel skip
+					ReliefDrawer reliefDrawer = (drawable instanceof ReliefDrawer)? (ReliefDrawer)drawable : null;
+					int pixelSkip = 0;
+					if(reliefDrawer != null) {
+						pixelSkip = reliefDrawer.getPixelSkip();
+						reliefDrawer.setPixelSkip(Math.min(pixelSkip, reliefDrawer.getProgressivePixelSkip()));
+					}
+					int level = progressiveDrawable.getCoarsestDetailLevel();
+					while(true) {
+						progressiveDrawable.setDetailLevel(level);
+						paintLevel();
+						if(level <= 0 || operationIsAborted)
+							break;
+						level = Math.max(0, Math.min(level - 1, progressiveDrawable.getNextDetailLevel(level)));
+					}
+					//paints outside of progressive rendering are done in full detail with the own pixel skip
+					if(reliefDrawer != null)
+						reliefDrawer.setPixelSkip(pixelSkip);
+					progressiveDrawable.setDetailLevel(0);
+				} else {
+					paintLevel();
+				}
+			} finally {
+				this.hasFinished = true;
+				reportProgress();
+			}
+		}
+		
+		/**
+		 * paints the drawable on its current level of detail, the image replaces the one of the last level
+		 */
+		private void paintLevel() {
+			BufferedImage image = new BufferedImage(field.width, field.height, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = image.createGraphics();
 			g.setClip(field);
 			g.setColor(Color.BLACK);
 			drawable.paint(g);
 			g.dispose();
-			this.hasFinished = true;
-			
+			//an aborted paint may be incomplete
+			if(!operationIsAborted) {
+				this.bufferedDrawableImage = image;
+				reportProgress();
+			}
 		}
 
 		public Drawable getDrawable() {
@@ -684,24 +741,10 @@ public class AdvancedPlotSheet extends PlotSheet implements Runnable{
 		public boolean hasFinished(){
 			return hasFinished;
 		}
-		public boolean hasJoined(){
-			return hasJoined;
-		}
+		
 		public BufferedImage getBufferedDrawableImage() {
 			return bufferedDrawableImage;
 		}
-
-
-		public BufferedImage getBufferedOldDrawableImage() {
-			return bufferedOldDrawableImage;
-		}
-
-
-		public void setBufferedOldDrawableImage(BufferedImage bufferedOldDrawableImage) {
-			this.bufferedOldDrawableImage = bufferedOldDrawableImage;
-		}
-		
-		
 		
 	}
 
@@ -7,7 +7,9 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Rectangle;
 
+import wildPlot.rendering.interfaces.ColumnTable;
 import wildPlot.rendering.interfaces.Function2D;
+import wildPlot.tools.ArrayColumnTable;
 
 /**
  * BarGraph uses a point matrix or a function to render bar graphs on PlotSheet object
@@ -18,7 +20,7 @@ public class BarGraph implements Drawable {
 	
 	private PlotSheet plotSheet;
 	
-	private double[][] points;
+	private ColumnTable points;
 	
 	private Function2D function;
 	
@@ -42,6 +44,17 @@ public class BarGraph implements Drawable {
 	 * @param color color of the bar
 	 */
 	public BarGraph(PlotSheet plotSheet, double size, double[][] points, Color color){
+		this(plotSheet, size, new ArrayColumnTable(points), color);
+	}
+	
+	/**
+	 * Constructor for BarGraph object
+	 * @param plotSheet the sheet the bar will be drawn onto
+	 * @param size absolute x-width of the bar
+	 * @param points start points (x,y) from each bar
+	 * @param color color of the bar
+	 */
+	public BarGraph(PlotSheet plotSheet, double size, ColumnTable points, Color color){
 		this.plotSheet = plotSheet;
 		this.size = size;
 		this.points = points;
@@ -118,11 +131,11 @@ public class BarGraph implements Drawable {
 			}
 			
 		} else {
-			for(int i = 0; i<this.points[0].length; i++) {
-				if(points.length == 3) {
-					drawBar(points[0][i], points[1][i], g, field, points[2][i]);
+			for(int i = 0; i<this.points.getRowCount(); i++) {
+				if(points.getColumnCount() == 3) {
+					drawBar(points.get(0, i), points.get(1, i), g, field, points.get(2, i));
 				} else {
-					drawBar(points[0][i], points[1][i], g, field);
+					drawBar(points.get(0, i), points.get(1, i), g, field);
 				}
 			}
 			
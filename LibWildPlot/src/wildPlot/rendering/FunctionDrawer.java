@@ -18,7 +18,7 @@ import wildPlot.rendering.interfaces.StepFunction2D;
  * 
  * 
  */
-public class FunctionDrawer implements Drawable {
+public class FunctionDrawer implements StripDrawable, ProgressiveDrawable {
 	
 	private boolean isStepFunction = false;
 	
@@ -40,6 +40,16 @@ public class FunctionDrawer implements Drawable {
 	
 	private boolean hasLimit = false;
 	
+	/**
+	 * level of detail in progressive rendering, the function is sampled at every 2^detailLevel-th column
+	 */
+	private int detailLevel = 0;
+	
+	/**
+	 * coarsest level of detail, the first preview samples every 8th column
+	 */
+	private static final int COARSEST_DETAIL_LEVEL = 3;
+	
 	/**
 	 * true when warning for pole positions is allready given
 	 */
@@ -92,6 +102,35 @@ public class FunctionDrawer implements Drawable {
 	 */
 	@Override
 	public void paint(Graphics g) {
+		Rectangle field = g.getClipBounds();
+		paintColumns(g, field, null);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.StripDrawable#prepareStrips(java.awt.Rectangle, boolean)
+	 */
+	@Override
+	public void prepareStrips(Rectangle field, boolean isShifted) {
+		//every column is calculated on its own, nothing to prepare
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.StripDrawable#paintStrip(java.awt.Graphics, java.awt.Rectangle, java.awt.Rectangle)
+	 */
+	@Override
+	public void paintStrip(Graphics g, Rectangle field, Rectangle strip) {
+		paintColumns(g, field, strip);
+	}
+	
+	/**
+	 * draws the function graph
+	 * @param g graphic object used for drawing
+	 * @param field bounds of the plot
+	 * @param strip if not null only the columns of this part of field are drawn
+	 */
+	private void paintColumns(Graphics g, Rectangle field, Rectangle strip) {
 		if(function instanceof StepFunction2D) {
 			this.isStepFunction = true;
 		}
@@ -101,7 +140,6 @@ public class FunctionDrawer implements Drawable {
 		    g2D.setStroke(new BasicStroke(this.size));  // set stroke width of 10
 		 
 		Color oldColor = g.getColor();
-		Rectangle field = g.getClipBounds();
 		g.setColor(color);
 		
 		
@@ -143,7 +181,22 @@ public class FunctionDrawer implements Drawable {
 			rightEnd = plotSheet.xToGraphic(rightLimit, field);
 		}
 		
-		for(int i = leftStart; i< rightEnd; i++) {
+		if(strip != null) {
+			//start one column left of the strip so that the line into the strip is drawn too
+			if(strip.x > leftStart) {
+				leftStart = strip.x;
+				drawingPoint = plotSheet.toCoordinatePoint(leftStart-1,0,field);
+				f_x = function.f(drawingPoint[0])*scaleFactor*extraScaleFactor;
+				coordStart = plotSheet.toGraphicPoint(drawingPoint[0],f_x,field);
+				if(this.isOnFrame)
+					coordStart = plotSheet.toGraphicPoint(drawingPoint[0],this.yOffset-f_x,field);
+			}
+			if(strip.x + strip.width + 1 < rightEnd)
+				rightEnd = strip.x + strip.width + 1;
+		}
+		
+		int columnStep = 1 << detailLevel;
+		for(int i = leftStart; i< rightEnd; i = nextColumn(i, rightEnd, columnStep)) {
 			drawingPoint = plotSheet.toCoordinatePoint(i,0,field);
 			
 			coordEnd = coordStart;
@@ -179,6 +232,18 @@ public class FunctionDrawer implements Drawable {
 
 	}
 	
+	/**
+	 * the next column the function is sampled at, the last column is always sampled so coarse previews reach
+	 * the right end of the graph
+	 * @param column current column
+	 * @param rightEnd end of the columns (exclusive)
+	 * @param columnStep distance between sampled columns
+	 * @return next sampled column, rightEnd after the last column
+	 */
+	private static int nextColumn(int column, int rightEnd, int columnStep) {
+		return (column < rightEnd - 1)? Math.min(column + columnStep, rightEnd - 1) : rightEnd;
+	}
+	
 	public double getMaxValue(int pixelResolution){
 		Rectangle field = new Rectangle(pixelResolution, pixelResolution);
 		double[] drawingPoint = plotSheet.toCoordinatePoint(field.x,0,field);
@@ -248,5 +313,36 @@ public class FunctionDrawer implements Drawable {
 		
 	}
 	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.ProgressiveDrawable#setDetailLevel(int)
+	 */
+	@Override
+	public void setDetailLevel(int level) {
+		if(level < 0){
+			System.err.println("FunctionDrawer:Error::Wrong detail level (smaller than 0)");
+			System.exit(-1);
+		}
+		this.detailLevel = Math.min(level, COARSEST_DETAIL_LEVEL);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.ProgressiveDrawable#getCoarsestDetailLevel()
+	 */
+	@Override
+	public int getCoarsestDetailLevel() {
+		return COARSEST_DETAIL_LEVEL;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.ProgressiveDrawable#getNextDetailLevel(int)
+	 */
+	@Override
+	public int getNextDetailLevel(int level) {
+		return level - 1;
+	}
+	
 	
 }
@@ -7,17 +7,20 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Rectangle;
 
+import wildPlot.rendering.interfaces.ColumnTable;
+import wildPlot.tools.ArrayColumnTable;
+
 /**
  * The LinesPoints objects draw points from a data array and connect them with lines on. 
  * These LinesPoints are drawn onto a PlotSheet object
  * @see wildPlot.rendering.Drawable
  * @see wildPlot.rendering.PlotSheet
  */
-public class LinesPoints implements Drawable {
+public class LinesPoints implements StripDrawable {
 	
 	private PlotSheet plotSheet;
 	
-	private double[][] pointList;
+	private ColumnTable pointList;
 	
 	private Color color;
 	
@@ -28,6 +31,16 @@ public class LinesPoints implements Drawable {
 	 * @param color point and line color
 	 */
 	public LinesPoints(PlotSheet plotSheet, double[][] pointList, Color color) {
+		this(plotSheet, new ArrayColumnTable(pointList), color);
+	}
+	
+	/**
+	 * Constructor for points connected with lines
+	 * @param plotSheet the sheet the lines and points will be drawn onto
+	 * @param pointList x- , y-positions of given points
+	 * @param color point and line color
+	 */
+	public LinesPoints(PlotSheet plotSheet, ColumnTable pointList, Color color) {
 		this.plotSheet = plotSheet;
 		this.pointList = pointList;
 		this.color = color;
@@ -38,18 +51,54 @@ public class LinesPoints implements Drawable {
 	 */
 	@Override
 	public void paint(Graphics g) {
-		Color oldColor = g.getColor();
 		Rectangle field = g.getClipBounds();
+		paintLines(g, field, null);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.StripDrawable#prepareStrips(java.awt.Rectangle, boolean)
+	 */
+	@Override
+	public void prepareStrips(Rectangle field, boolean isShifted) {
+		//every line is drawn on its own, nothing to prepare
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.StripDrawable#paintStrip(java.awt.Graphics, java.awt.Rectangle, java.awt.Rectangle)
+	 */
+	@Override
+	public void paintStrip(Graphics g, Rectangle field, Rectangle strip) {
+		paintLines(g, field, strip);
+	}
+	
+	/**
+	 * draws the points and the lines between them
+	 * @param g graphic object used for drawing
+	 * @param field bounds of the plot
+	 * @param strip if not null only the lines and points that reach into this part of field are drawn
+	 */
+	private void paintLines(Graphics g, Rectangle field, Rectangle strip) {
+		Color oldColor = g.getColor();
+		//the table may grow while it is drawn, only the rows that are there at the start are drawn
+		int rowCount = pointList.getRowCount();
+		if(rowCount == 0)
+			return;
 		g.setColor(color);
 		
-		int[] coordStart = plotSheet.toGraphicPoint(pointList[0][0],pointList[1][0],field);
+		int[] coordStart = plotSheet.toGraphicPoint(pointList.get(0, 0),pointList.get(1, 0),field);
 		int[] coordEnd = coordStart;
 		
-		for(int i = 0; i< pointList[0].length; i++) {
+		for(int i = 0; i< rowCount; i++) {
 			coordEnd = coordStart;
-			coordStart = plotSheet.toGraphicPoint(pointList[0][i],pointList[1][i],field);
+			coordStart = plotSheet.toGraphicPoint(pointList.get(0, i),pointList.get(1, i),field);
+			//lines that lie completely left or right of the strip are skipped, the marks of points reach 3 pixel further
+			if(strip != null && ((coordStart[0] + 3 < strip.x && coordEnd[0] + 3 < strip.x) || 
+					(coordStart[0] - 3 >= strip.x + strip.width && coordEnd[0] - 3 >= strip.x + strip.width)))
+				continue;
 			g.drawLine(coordStart[0], coordStart[1], coordEnd[0], coordEnd[1]);
-			drawPoint(pointList[0][i], pointList[1][i], g, field);
+			drawPoint(pointList.get(0, i), pointList.get(1, i), g, field);
 		}
 		g.setColor(oldColor);
 	}
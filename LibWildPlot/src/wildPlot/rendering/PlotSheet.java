@@ -3,14 +3,29 @@
  */
 package wildPlot.rendering;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
+import java.awt.Composite;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.HashMap;
 import java.util.Vector;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 
@@ -62,6 +77,71 @@ public class PlotSheet implements Drawable {
 	 */
 	Vector<MultiScreenPart> screenParts = new Vector<MultiScreenPart>();
 	
+	/**
+	 * if true, panning reuses the images of the last paint and only the exposed strips are painted anew
+	 */
+	private boolean isPanMode = false;
+	
+	/**
+	 * pixel distance the plot was shifted by pan() since the last paint
+	 */
+	private int panDx = 0;
+	private int panDy = 0;
+	
+	/**
+	 * lowest and highest x-value of the data that has changed since the last paint, null if no data has changed
+	 */
+	private double[] changedXRange = null;
+	
+	/**
+	 * the strip of changed data is widened by this many pixels on both sides, so the marks of points at its border
+	 * are painted completely
+	 */
+	private static final int CHANGE_MARGIN = 4;
+	
+	/**
+	 * bounds of the last paint, null if the images of the last paint cannot be reused
+	 */
+	private Rectangle lastField = null;
+	
+	/**
+	 * images of every drawable from the last paint, used for incremental repaint while panning
+	 */
+	private HashMap<Drawable, BufferedImage> lastDrawableImages = new HashMap<Drawable, BufferedImage>();
+	
+	/**
+	 * producers of every drawable that depends on others, a dependent drawable is only started after all of its
+	 * producers have finished painting
+	 */
+	private HashMap<Drawable, Vector<Drawable>> dependencies = new HashMap<Drawable, Vector<Drawable>>();
+	
+	/**
+	 * edge length of tiles in pixel for tiled rendering, 0 if tiled rendering is not used
+	 */
+	private int tileSize = 0;
+	
+	/**
+	 * thread pool that renders the tiles of all plot sheets, the pool has one thread for each processor
+	 */
+	private static ExecutorService tilePool = null;
+	
+	/**
+	 * true if the current paint is aborted, drawables and tiles that have not started yet are not painted
+	 */
+	private volatile boolean isAborted = false;
+	
+	/**
+	 * milliseconds between two aborts of the drawables while an aborted paint waits for them, a drawable that starts
+	 * its paint after an abort resets its own abort flag
+	 */
+	private static final long ABORT_INTERVAL = 50;
+	
+	/**
+	 * resolution in dots per inch that renders one unit of the plot to exactly one pixel, this is the resolution
+	 * of the plot window
+	 */
+	public static final double DEFAULT_DPI = 72;
+	
 	/**
 	 * Create a virtual sheet used for the plot
 	 * @param xStart the start of the x-range
@@ -99,6 +179,7 @@ public class PlotSheet implements Drawable {
     public void updateX(double xStart, double xEnd) {
     	double[] xRange = {xStart, xEnd};
         this.screenParts.get(0).setxRange(xRange);
+        invalidateLastPaint();
     }
     
     /**
@@ -109,6 +190,7 @@ public class PlotSheet implements Drawable {
     public void updateY(double yStart, double yEnd) {
     	double[] yRange = {yStart, yEnd};
         this.screenParts.get(0).setyRange(yRange);
+        invalidateLastPaint();
     }
 	
 	/**
@@ -119,6 +201,40 @@ public class PlotSheet implements Drawable {
 	 */
 	public void addDrawable(Drawable draw) {
 		this.screenParts.get(0).addDrawable(draw);
+		invalidateLastPaint();
+	}
+	
+	/**
+	 * let a drawable be painted only after another one has finished, e.g. a legend that shows values the drawable
+	 * computes while it is painted, the dependent drawable does not take up a thread while it waits
+	 * @param dependent drawable that uses results of the producer
+	 * @param producer drawable that has to be painted first
+	 */
+	public void addDependency(Drawable dependent, Drawable producer) {
+		if(dependent == producer || dependsOn(producer, dependent)){
+			System.err.println("PlotSheet:Error::Cyclic dependency between drawables");
+			System.exit(-1);
+		}
+		Vector<Drawable> producers = this.dependencies.get(dependent);
+		if(producers == null) {
+			producers = new Vector<Drawable>();
+			this.dependencies.put(dependent, producers);
+		}
+		producers.add(producer);
+	}
+	
+	/**
+	 * @return true if the dependent drawable depends on the producer directly or through other drawables
+	 */
+	private boolean dependsOn(Drawable dependent, Drawable producer) {
+		Vector<Drawable> producers = this.dependencies.get(dependent);
+		if(producers == null)
+			return false;
+		for(Drawable directProducer : producers) {
+			if(directProducer == producer || dependsOn(directProducer, producer))
+				return true;
+		}
+		return false;
 	}
 	
 
@@ -251,6 +367,117 @@ public class PlotSheet implements Drawable {
 		return coordinatePoint;
 	}
 
+	/**
+	 * Move the visible part of the plot by the given pixel distance. The x- and y-range are shifted accordingly.
+	 * If pan mode is active the next paint reuses the images of the last paint and only paints the newly
+	 * exposed strips of StripDrawables.
+	 * @param dx pixel distance in x direction, positive values move the plot content to the right
+	 * @param dy pixel distance in y direction, positive values move the plot content downwards
+	 * @param field bounds of the plot
+	 * @see wildPlot.rendering.StripDrawable
+	 */
+	public void pan(int dx, int dy, Rectangle field) {
+		double[] xRange = this.screenParts.get(0).getxRange();
+		double[] yRange = this.screenParts.get(0).getyRange();
+		double xPixelShare = (double)dx/(field.width - 2*frameThickness);
+		double yPixelShare = (double)dy/(field.height - 2*frameThickness);
+		
+		if(this.isLogX) {
+			double factor = Math.pow(xRange[1]/xRange[0], xPixelShare);
+			double[] newXRange = {xRange[0]/factor, xRange[1]/factor};
+			this.screenParts.get(0).setxRange(newXRange);
+		} else {
+			double shift = xPixelShare*(xRange[1] - xRange[0]);
+			double[] newXRange = {xRange[0] - shift, xRange[1] - shift};
+			this.screenParts.get(0).setxRange(newXRange);
+		}
+		
+		if(this.isLogY) {
+			double factor = Math.pow(yRange[1]/yRange[0], yPixelShare);
+			double[] newYRange = {yRange[0]*factor, yRange[1]*factor};
+			this.screenParts.get(0).setyRange(newYRange);
+		} else {
+			double shift = yPixelShare*(yRange[1] - yRange[0]);
+			double[] newYRange = {yRange[0] + shift, yRange[1] + shift};
+			this.screenParts.get(0).setyRange(newYRange);
+		}
+		
+		this.panDx += dx;
+		this.panDy += dy;
+	}
+	
+	/**
+	 * the data of a drawable has changed, so the next paint renders the whole plot even in pan mode
+	 */
+	public void invalidate() {
+		invalidateLastPaint();
+	}
+	
+	/**
+	 * the data of the drawables has changed only between the given x-values, in pan mode the next paint reuses the
+	 * images of the last paint and only paints this part of StripDrawables anew
+	 * @param xStart lowest x-value of the changed data
+	 * @param xEnd highest x-value of the changed data
+	 * @see wildPlot.rendering.StripDrawable
+	 */
+	public void invalidate(double xStart, double xEnd) {
+		if(this.changedXRange == null) {
+			this.changedXRange = new double[] {xStart, xEnd};
+		} else {
+			this.changedXRange[0] = Math.min(this.changedXRange[0], xStart);
+			this.changedXRange[1] = Math.max(this.changedXRange[1], xEnd);
+		}
+	}
+	
+	/**
+	 * the images of the last paint do not show the current plot anymore and cannot be reused
+	 */
+	private void invalidateLastPaint() {
+		this.lastField = null;
+		this.panDx = 0;
+		this.panDy = 0;
+		this.changedXRange = null;
+	}
+	
+	/**
+	 * checks if the next paint in the given bounds can reuse the images of the last paint
+	 * @param field bounds of the next paint
+	 * @return true if only the exposed strips have to be painted
+	 */
+	private boolean canPaintIncremental(Rectangle field) {
+		return this.isPanMode && !this.isLogX && !this.isLogY && field.equals(this.lastField) &&
+				(this.panDx != 0 || this.panDy != 0 || this.changedXRange != null) &&
+				Math.abs(this.panDx) < field.width - 2*this.frameThickness &&
+				Math.abs(this.panDy) < field.height - 2*this.frameThickness;
+	}
+	
+	/**
+	 * calculates the strips that are exposed when the last image is shifted by the current pan distance and the strip
+	 * of changed data, the strips include the frame because drawables may paint different things below the frame
+	 * @param field bounds of the plot
+	 * @return exposed strips
+	 */
+	private Rectangle[] exposedStrips(Rectangle field) {
+		Vector<Rectangle> strips = new Vector<Rectangle>();
+		if(this.panDx > 0) {
+			strips.add(new Rectangle(field.x, field.y, this.frameThickness + this.panDx, field.height));
+		} else if(this.panDx < 0) {
+			strips.add(new Rectangle(field.x + field.width - this.frameThickness + this.panDx, field.y, this.frameThickness - this.panDx, field.height));
+		}
+		if(this.panDy > 0) {
+			strips.add(new Rectangle(field.x, field.y, field.width, this.frameThickness + this.panDy));
+		} else if(this.panDy < 0) {
+			strips.add(new Rectangle(field.x, field.y + field.height - this.frameThickness + this.panDy, field.width, this.frameThickness - this.panDy));
+		}
+		if(this.changedXRange != null) {
+			int xStart = Math.max(field.x, xToGraphicLinear(this.changedXRange[0], field) - CHANGE_MARGIN);
+			int xEnd = Math.min(field.x + field.width, xToGraphicLinear(this.changedXRange[1], field) + CHANGE_MARGIN + 1);
+			if(xStart < xEnd)
+				strips.add(new Rectangle(xStart, field.y, xEnd - xStart, field.height));
+		}
+		return strips.toArray(new Rectangle[strips.size()]);
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see rendering.Drawable#paint(java.awt.Graphics)
@@ -271,21 +498,43 @@ public class PlotSheet implements Drawable {
 	private void drawSingleMode(Graphics g, int screenNr) {
 		Rectangle field = g.getClipBounds();
 		this.currentScreen = screenNr;
+		this.isAborted = false;
+		
+		//if the graphic object is scaled (e.g. for a higher resolution) the layers are scaled the same way, 
+		//so they have the resolution of the target and are not magnified when they are composed
+		AffineTransform targetTransform = ((Graphics2D)g).getTransform();
+		AffineTransform layerTransform = AffineTransform.getScaleInstance(targetTransform.getScaleX(), targetTransform.getScaleY());
+		
+		boolean isIncremental = layerTransform.isIdentity() && canPaintIncremental(field);
+		Rectangle[] strips = (isIncremental)? exposedStrips(field) : null;
 		
 		Vector<DrawableDrawingRunnable> offFrameDrawables = new Vector<DrawableDrawingRunnable>();
 		Vector<DrawableDrawingRunnable> onFrameDrawables = new Vector<DrawableDrawingRunnable>();
-		BufferedImage bufferedFrameImage = new BufferedImage(field.width, field.height, BufferedImage.TYPE_INT_ARGB);
+		BufferedImage bufferedFrameImage = createLayerImage(field, layerTransform);
 		Graphics2D gFrame = bufferedFrameImage.createGraphics();
+		gFrame.transform(layerTransform);
 		gFrame.setClip(field);
 		gFrame.setColor(Color.BLACK);
-		Thread[] threads = new Thread[this.screenParts.get(screenNr).getDrawables().size()]; 
-		int i = 0;
+		Vector<DrawableDrawingRunnable> threadedDrawables = new Vector<DrawableDrawingRunnable>();
+		Vector<DrawableDrawingRunnable> tiledDrawables = new Vector<DrawableDrawingRunnable>();
+		HashMap<Drawable, DrawableDrawingRunnable> drawableRunnables = new HashMap<Drawable, DrawableDrawingRunnable>();
 		
 		if(this.screenParts.get(screenNr).getDrawables() != null && this.screenParts.get(screenNr).getDrawables().size() != 0) {
 			for(Drawable draw : this.screenParts.get(screenNr).getDrawables()) {
-				DrawableDrawingRunnable drawableDrawingRunnable = new DrawableDrawingRunnable(draw, field);
-				threads[i] = new Thread( drawableDrawingRunnable);
-				threads[i++].start();
+				DrawableDrawingRunnable drawableDrawingRunnable;
+				BufferedImage lastImage = this.lastDrawableImages.get(draw);
+				if(isIncremental && lastImage != null && draw instanceof StripDrawable && !draw.isOnFrame()) {
+					drawableDrawingRunnable = new DrawableDrawingRunnable((StripDrawable)draw, field, lastImage, this.panDx, this.panDy, strips);
+				} else {
+					drawableDrawingRunnable = new DrawableDrawingRunnable(draw, field, layerTransform);
+				}
+				if(!isIncremental && this.tileSize > 0 && draw instanceof StripDrawable && !this.dependencies.containsKey(draw)) {
+					//painted tile by tile in the tile pool
+					tiledDrawables.add(drawableDrawingRunnable);
+				} else {
+					threadedDrawables.add(drawableDrawingRunnable);
+				}
+				drawableRunnables.put(draw, drawableDrawingRunnable);
 				if(!draw.isOnFrame()) {
 					offFrameDrawables.add(drawableDrawingRunnable);
 				} else {
@@ -294,6 +543,35 @@ public class PlotSheet implements Drawable {
 			}
 		}
 		
+		//dependent drawables are started by the last of their producers that finishes
+		for(DrawableDrawingRunnable drawableDrawingRunnable : drawableRunnables.values()) {
+			Vector<Drawable> producers = this.dependencies.get(drawableDrawingRunnable.getDrawable());
+			if(producers == null)
+				continue;
+			for(Drawable producer : producers) {
+				DrawableDrawingRunnable producerRunnable = drawableRunnables.get(producer);
+				if(producerRunnable != null)
+					producerRunnable.addDependent(drawableDrawingRunnable);
+			}
+		}
+		for(DrawableDrawingRunnable threadedDrawable : threadedDrawables) {
+			threadedDrawable.start();
+		}
+		
+		Vector<Future<?>> tileFutures = new Vector<Future<?>>();
+		if(!tiledDrawables.isEmpty()) {
+			for(DrawableDrawingRunnable tiledDrawable : tiledDrawables) {
+				((StripDrawable)tiledDrawable.getDrawable()).prepareStrips(field, false);
+			}
+			ExecutorService pool = getTilePool();
+			for(int y = field.y; y < field.y + field.height; y += this.tileSize) {
+				for(int x = field.x; x < field.x + field.width; x += this.tileSize) {
+					Rectangle tile = new Rectangle(x, y, Math.min(this.tileSize, field.x + field.width - x), Math.min(this.tileSize, field.y + field.height - y));
+					tileFutures.add(pool.submit(new TileDrawingRunnable(tiledDrawables, tile)));
+				}
+			}
+		}
+		
 		//paint white frame to over paint everything that was drawn over the border 
 		Color oldColor = gFrame.getColor();
 		if(this.frameThickness>0){
@@ -340,23 +618,137 @@ public class PlotSheet implements Drawable {
 		}
 		gFrame.dispose();
 		
-		for(i=0; i<threads.length; i++ ){
+		//tiles first, the drawables that depend on tiled drawables are only started when those are finished.
+		//If the painting thread is interrupted, e.g. because a rendering exceeded its deadline, the paint is aborted
+		boolean isInterrupted = false;
+		for(Future<?> tileFuture : tileFutures) {
 			try {
-				threads[i].join();
+				tileFuture.get();
 			} catch (InterruptedException e) {
-				// TODO Auto-generated catch block
+				isInterrupted = true;
+				abortAndReset();
+				for(Future<?> queuedTile : tileFutures)
+					queuedTile.cancel(false);
+			} catch (CancellationException e) {
+				//the paint is aborted
+			} catch (ExecutionException e) {
 				e.printStackTrace();
 			}
 		}
+		for(DrawableDrawingRunnable tiledDrawable : tiledDrawables) {
+			tiledDrawable.finish();
+		}
+		for(DrawableDrawingRunnable threadedDrawable : threadedDrawables) {
+			while(true) {
+				try {
+					if(!this.isAborted) {
+						threadedDrawable.awaitFinished();
+						break;
+					}
+					if(threadedDrawable.awaitFinished(ABORT_INTERVAL))
+						break;
+					abortAndReset();
+				} catch (InterruptedException e) {
+					isInterrupted = true;
+					abortAndReset();
+				}
+			}
+		}
+		if(isInterrupted)
+			Thread.currentThread().interrupt();
 		
+		this.lastDrawableImages.clear();
 		for(DrawableDrawingRunnable offFrameDrawing : offFrameDrawables){
-			((Graphics2D)g).drawImage(offFrameDrawing.getBufferedDrawableImage(), null, 0, 0);
+			drawLayer((Graphics2D)g, offFrameDrawing.getBufferedDrawableImage(), layerTransform);
+			//only images of drawables that can be shifted are needed for the next paint
+			if(this.isPanMode && offFrameDrawing.getDrawable() instanceof StripDrawable)
+				this.lastDrawableImages.put(offFrameDrawing.getDrawable(), offFrameDrawing.getBufferedDrawableImage());
 		}
-		((Graphics2D)g).drawImage(bufferedFrameImage, null, 0, 0);
+		drawLayer((Graphics2D)g, bufferedFrameImage, layerTransform);
 		for(DrawableDrawingRunnable onFrameDrawing : onFrameDrawables){
-			((Graphics2D)g).drawImage(onFrameDrawing.getBufferedDrawableImage(), null, 0, 0);
+			drawLayer((Graphics2D)g, onFrameDrawing.getBufferedDrawableImage(), layerTransform);
+		}
+		this.lastField = new Rectangle(field);
+		this.panDx = 0;
+		this.panDy = 0;
+		this.changedXRange = null;
+	}
+	
+	/**
+	 * creates a transparent image for one layer of the plot with the resolution of the target
+	 * @param field bounds of the plot
+	 * @param layerTransform scaling of the target graphic object
+	 * @return image for the layer
+	 */
+	private static BufferedImage createLayerImage(Rectangle field, AffineTransform layerTransform) {
+		int width = (int)Math.ceil(field.width*layerTransform.getScaleX());
+		int height = (int)Math.ceil(field.height*layerTransform.getScaleY());
+		return new BufferedImage(Math.max(width, 1), Math.max(height, 1), BufferedImage.TYPE_INT_ARGB);
+	}
+	
+	/**
+	 * draws a layer image onto the target, the layer already has the resolution of the target so its scaling is 
+	 * reverted before it is drawn
+	 * @param g graphic object of the target
+	 * @param layer layer image
+	 * @param layerTransform scaling of the target graphic object
+	 */
+	private static void drawLayer(Graphics2D g, BufferedImage layer, AffineTransform layerTransform) {
+		if(layerTransform.isIdentity()) {
+			g.drawImage(layer, null, 0, 0);
+		} else {
+			g.drawImage(layer, AffineTransform.getScaleInstance(1/layerTransform.getScaleX(), 1/layerTransform.getScaleY()), null);
 		}
-		
+	}
+	
+	/**
+	 * renders the plot into a new image without any window, this can be used on headless systems
+	 * @param width width of the image in pixel
+	 * @param height height of the image in pixel
+	 * @param dpi resolution of the image, with DEFAULT_DPI one unit of the plot is one pixel as in the plot window,
+	 * higher resolutions render the plot with proportionally larger fonts, lines and frames
+	 * @return image of the plot
+	 */
+	public BufferedImage renderImage(int width, int height, double dpi) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		renderImage(image, dpi);
+		return image;
+	}
+	
+	/**
+	 * renders the plot into the given image without any window, the whole image is overwritten. 
+	 * The image can be reused for several plots of the same size
+	 * @param image the image the plot is rendered into
+	 * @param dpi resolution of the image
+	 * @throws IllegalArgumentException if the resolution is not greater than 0
+	 * @see #renderImage(int, int, double)
+	 */
+	public void renderImage(BufferedImage image, double dpi) {
+		//plots of scripts are rendered in servers, so a wrong value must not end the process
+		if(!(dpi > 0) || Double.isInfinite(dpi))
+			throw new IllegalArgumentException("PlotSheet:Error::Wrong resolution (not greater than 0 dpi)");
+		double scale = dpi/DEFAULT_DPI;
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, image.getWidth(), image.getHeight());
+		g.scale(scale, scale);
+		g.setClip(0, 0, (int)Math.round(image.getWidth()/scale), (int)Math.round(image.getHeight()/scale));
+		g.setColor(Color.BLACK);
+		paint(g);
+		g.dispose();
+	}
+	
+	/**
+	 * renders the plot without any window and returns its raw pixels
+	 * @param width width of the image in pixel
+	 * @param height height of the image in pixel
+	 * @param dpi resolution of the image
+	 * @return pixels as packed ARGB integers, row by row starting at the upper left corner
+	 * @see #renderImage(int, int, double)
+	 */
+	public int[] renderPixels(int width, int height, double dpi) {
+		BufferedImage image = renderImage(width, height, dpi);
+		return ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
 	}
 	
 	/**
@@ -373,6 +765,7 @@ public class PlotSheet implements Drawable {
 	 */
 	public void setxRange(double[] xRange) {
 		this.screenParts.get(0).setxRange(xRange);
+		invalidateLastPaint();
 	}
 	
 	/**
@@ -389,6 +782,7 @@ public class PlotSheet implements Drawable {
 	 */
 	public void setyRange(double[] yRange) {
 		this.screenParts.get(0).setyRange(yRange);
+		invalidateLastPaint();
 	}
 	
 	/**
@@ -402,13 +796,13 @@ public class PlotSheet implements Drawable {
 	/**
 	 * set the size of the outer frame in pixel
 	 * @param frameThickness new size for the outer frame in pixel
+	 * @throws IllegalArgumentException if the size is smaller than 0
 	 */
 	public void setFrameThickness(int frameThickness) {
-		if(frameThickness < 0){
-			System.err.println("PlotSheet:Error::Wrong Frame size (smaller than 0)");
-			System.exit(-1);
-		}
+		if(frameThickness < 0)
+			throw new IllegalArgumentException("PlotSheet:Error::Wrong Frame size (smaller than 0)");
 		this.frameThickness = frameThickness;
+		invalidateLastPaint();
 	}
 	
 	/**
@@ -450,7 +844,8 @@ public class PlotSheet implements Drawable {
 	 */
 	public double ticsCalcX(int pixelDistance, Rectangle field){
 		double deltaRange = this.screenParts.get(currentScreen).getxRange()[1] - this.screenParts.get(currentScreen).getxRange()[0];
-		int ticlimit = field.width/pixelDistance;
+		//at least one tic, otherwise the tic distance would grow forever for small plots
+		int ticlimit = Math.max(field.width/pixelDistance, 1);
 		double tics = Math.pow(10, (int)Math.log10(deltaRange/ticlimit));
 		while(2.0*(deltaRange/(tics)) <= ticlimit) {
 			tics /= 2.0;
@@ -468,7 +863,8 @@ public class PlotSheet implements Drawable {
 	 */
 	public double ticsCalcY(int pixelDistance, Rectangle field){
 		double deltaRange = this.screenParts.get(currentScreen).getyRange()[1] - this.screenParts.get(currentScreen).getyRange()[0];
-		int ticlimit = field.height/pixelDistance;
+		//at least one tic, otherwise the tic distance would grow forever for small plots
+		int ticlimit = Math.max(field.height/pixelDistance, 1);
 		double tics = Math.pow(10, (int)Math.log10(deltaRange/ticlimit));
 		while(2.0*(deltaRange/(tics)) <= ticlimit) {
 			tics /= 2.0;
@@ -497,18 +893,103 @@ public class PlotSheet implements Drawable {
 	
 	public void setLogX() {
 		this.isLogX = true;
+		invalidateLastPaint();
 	}
 
 	public void setLogY() {
 		this.isLogY = true;
+		invalidateLastPaint();
 	}
 	
 	public void unsetLogX() {
 		this.isLogX = false;
+		invalidateLastPaint();
 	}
 
 	public void unsetLogY() {
 		this.isLogY = false;
+		invalidateLastPaint();
+	}
+	
+	/**
+	 * activate pan mode, while panning only the exposed strips of StripDrawables are painted anew
+	 * @see wildPlot.rendering.StripDrawable
+	 */
+	public void setPanMode() {
+		this.isPanMode = true;
+	}
+	
+	/**
+	 * deactivate pan mode, every paint renders the whole plot (standard behavior)
+	 */
+	public void unsetPanMode() {
+		this.isPanMode = false;
+	}
+	
+	/**
+	 * activate tiled rendering, the plot is split into square tiles and every tile is rendered as an independent task
+	 * for all drawables that can paint strips, this balances the work evenly over all processors even if one drawable 
+	 * is much more expensive than the others
+	 * @param tileSize edge length of a tile in pixel
+	 * @see wildPlot.rendering.StripDrawable
+	 */
+	public void setTiledRendering(int tileSize) {
+		if(tileSize <= 0){
+			System.err.println("PlotSheet:Error::Wrong tile size (smaller than 1)");
+			System.exit(-1);
+		}
+		this.tileSize = tileSize;
+	}
+	
+	/**
+	 * deactivate tiled rendering, every drawable is rendered in its own thread (standard behavior)
+	 */
+	public void unsetTiledRendering() {
+		this.tileSize = 0;
+	}
+	
+	/**
+	 * returns the thread pool used for rendering tiles, the pool is created on first use, drawables that split their
+	 * own work into tiles use it as well
+	 * @return thread pool with one thread for each processor
+	 */
+	static synchronized ExecutorService getTilePool() {
+		if(tilePool == null) {
+			tilePool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "wildPlot-tile");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return tilePool;
+	}
+	
+	/**
+	 * renders one tile of the plot for all given drawables into their images, the images are shared by all tiles
+	 * but tiles never overlap
+	 */
+	private class TileDrawingRunnable implements Runnable {
+		
+		private Vector<DrawableDrawingRunnable> drawables;
+		private Rectangle tile;
+		
+		public TileDrawingRunnable(Vector<DrawableDrawingRunnable> drawables, Rectangle tile) {
+			super();
+			this.drawables = drawables;
+			this.tile = tile;
+		}
+		
+		@Override
+		public void run() {
+			for(DrawableDrawingRunnable drawable : drawables) {
+				if(isAborted)
+					return;
+				drawable.paintTile(tile);
+			}
+		}
 	}
 	
 	private class DrawableDrawingRunnable implements Runnable {
@@ -517,27 +998,163 @@ public class PlotSheet implements Drawable {
 		
 		private BufferedImage bufferedDrawableImage;
 		private Rectangle field;
+		
+		/**
+		 * image of the last paint and its shift, only used when strips are painted
+		 */
+		private BufferedImage lastImage = null;
+		private int dx = 0;
+		private int dy = 0;
+		
+		/**
+		 * the strips that have to be painted, null if the whole drawable is painted
+		 */
+		private Rectangle[] strips = null;
+		
+		/**
+		 * scaling of the target graphic object, the image of this runnable has the resolution of the target
+		 */
+		private AffineTransform layerTransform;
+		
+		/**
+		 * runnables of the drawables that depend on this one and the number of producers this one still waits for
+		 */
+		private Vector<DrawableDrawingRunnable> dependents = new Vector<DrawableDrawingRunnable>();
+		private AtomicInteger pendingProducers = new AtomicInteger();
+		private AtomicBoolean isStarted = new AtomicBoolean();
+		
+		/**
+		 * released when this drawable has finished painting
+		 */
+		private CountDownLatch finished = new CountDownLatch(1);
 
-		public DrawableDrawingRunnable(Drawable drawable, Rectangle field) {
+		public DrawableDrawingRunnable(Drawable drawable, Rectangle field, AffineTransform layerTransform) {
 			super();
 			this.drawable = drawable;
 			this.field = field;
-			bufferedDrawableImage = new BufferedImage(field.width, field.height, BufferedImage.TYPE_INT_ARGB);
+			this.layerTransform = layerTransform;
+			bufferedDrawableImage = createLayerImage(field, layerTransform);
 			
 		}
+		
+		/**
+		 * Runnable that reuses the shifted image of the last paint and only paints the given strips
+		 * @param drawable drawable that can paint strips
+		 * @param field bounds of the plot
+		 * @param lastImage image of this drawable from the last paint
+		 * @param dx shift of the last image in x direction
+		 * @param dy shift of the last image in y direction
+		 * @param strips the exposed strips that are painted anew
+		 */
+		public DrawableDrawingRunnable(StripDrawable drawable, Rectangle field, BufferedImage lastImage, int dx, int dy, Rectangle[] strips) {
+			this(drawable, field, new AffineTransform());
+			this.lastImage = lastImage;
+			this.dx = dx;
+			this.dy = dy;
+			this.strips = strips;
+		}
 
 
+		/**
+		 * let a drawable wait until this one has finished, must be called before any of them is started
+		 * @param dependent runnable of the dependent drawable
+		 */
+		public void addDependent(DrawableDrawingRunnable dependent) {
+			this.dependents.add(dependent);
+			dependent.pendingProducers.incrementAndGet();
+		}
+		
+		/**
+		 * starts a thread for this runnable if it does not wait for producers and has not been started before
+		 */
+		public void start() {
+			if(pendingProducers.get() == 0 && isStarted.compareAndSet(false, true))
+				new Thread(this).start();
+		}
+		
+		/**
+		 * marks this drawable as finished and starts the dependents that do not wait for other producers
+		 */
+		public void finish() {
+			finished.countDown();
+			for(DrawableDrawingRunnable dependent : dependents) {
+				if(dependent.pendingProducers.decrementAndGet() == 0)
+					dependent.start();
+			}
+		}
+		
+		/**
+		 * waits until this drawable has finished painting
+		 */
+		public void awaitFinished() throws InterruptedException {
+			finished.await();
+		}
+		
+		/**
+		 * waits until this drawable has finished painting or the time is over
+		 * @param milliseconds longest time to wait
+		 * @return true if the drawable has finished
+		 */
+		public boolean awaitFinished(long milliseconds) throws InterruptedException {
+			return finished.await(milliseconds, TimeUnit.MILLISECONDS);
+		}
+
 		@Override
 		public void run() {
+			try {
+				if(!isAborted)
+					paintDrawable();
+			} finally {
+				finish();
+			}
+		}
+		
+		private void paintDrawable() {
 			Graphics2D g = bufferedDrawableImage.createGraphics();
-			g.setClip(field);
-			g.setColor(Color.BLACK);
-			drawable.paint(g);
+			g.transform(layerTransform);
+			if(this.strips == null) {
+				g.setClip(field);
+				g.setColor(Color.BLACK);
+				drawable.paint(g);
+			} else {
+				g.drawImage(lastImage, null, dx, dy);
+				((StripDrawable)drawable).prepareStrips(field, true);
+				for(Rectangle strip : strips) {
+					//whatever was shifted into the strip is outdated, the clip of the previous strip must not hide it
+					g.setClip(strip);
+					Composite oldComposite = g.getComposite();
+					g.setComposite(AlphaComposite.Clear);
+					g.fillRect(strip.x, strip.y, strip.width, strip.height);
+					g.setComposite(oldComposite);
+					
+					g.setColor(Color.BLACK);
+					((StripDrawable)drawable).paintStrip(g, field, strip);
+				}
+			}
 			g.dispose();
 			
 		}
 
 
+		/**
+		 * paint only one tile of the drawable into the image of this runnable
+		 * @param tile part of the plot that is painted
+		 */
+		public void paintTile(Rectangle tile) {
+			Graphics2D g = bufferedDrawableImage.createGraphics();
+			g.transform(layerTransform);
+			g.setClip(tile);
+			g.setColor(Color.BLACK);
+			((StripDrawable)drawable).paintStrip(g, field, tile);
+			g.dispose();
+		}
+
+
+		public Drawable getDrawable() {
+			return drawable;
+		}
+
+
 		public BufferedImage getBufferedDrawableImage() {
 			return bufferedDrawableImage;
 		}
@@ -546,9 +1163,18 @@ public class PlotSheet implements Drawable {
 		
 	}
 
+	/**
+	 * aborts the current paint, the drawables that are painted are aborted and the ones that have not started yet are
+	 * not painted, the next paint starts anew. This can be called by any thread
+	 */
 	@Override
 	public void abortAndReset() {
-		// TODO Auto-generated method stub
-		
+		this.isAborted = true;
+		for(MultiScreenPart screenPart : this.screenParts) {
+			if(screenPart.getDrawables() == null)
+				continue;
+			for(Drawable drawable : screenPart.getDrawables())
+				drawable.abortAndReset();
+		}
 	}
 }
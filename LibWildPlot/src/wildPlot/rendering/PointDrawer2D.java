@@ -7,21 +7,38 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Rectangle;
 
+import wildPlot.rendering.interfaces.ColumnTable;
+import wildPlot.tools.ArrayColumnTable;
+
 /**
  * This class simply draws points from a given data array or a function in given interval on a PlotSheet object
  * 
  * @see wildPlot.rendering.Drawable
  * @see wildPlot.rendering.PlotSheet
  */
-public class PointDrawer2D implements Drawable {
+public class PointDrawer2D implements ProgressiveDrawable, StripDrawable {
 	
 	private PlotSheet plotSheet;
 	
-	private double[][] pointList;
+	private ColumnTable pointList;
 	
 	private Color color;
 	
+	/**
+	 * level of detail in progressive rendering, only every 2^detailLevel-th point is drawn
+	 */
+	private int detailLevel = 0;
+	
+	/**
+	 * the coarsest preview draws at most this many points
+	 */
+	private static final int PREVIEW_POINTS = 4096;
+	
 	public PointDrawer2D(PlotSheet plotSheet, double[][] pointList, Color color) {
+		this(plotSheet, new ArrayColumnTable(pointList), color);
+	}
+	
+	public PointDrawer2D(PlotSheet plotSheet, ColumnTable pointList, Color color) {
 		this.plotSheet = plotSheet;
 		this.pointList = pointList;
 		this.color = color;
@@ -32,12 +49,48 @@ public class PointDrawer2D implements Drawable {
 	 */
 	@Override
 	public void paint(Graphics g) {
-		Color oldColor = g.getColor();
 		Rectangle field = g.getClipBounds();
+		paintPoints(g, field, null);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.StripDrawable#prepareStrips(java.awt.Rectangle, boolean)
+	 */
+	@Override
+	public void prepareStrips(Rectangle field, boolean isShifted) {
+		//every point is drawn on its own, nothing to prepare
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.StripDrawable#paintStrip(java.awt.Graphics, java.awt.Rectangle, java.awt.Rectangle)
+	 */
+	@Override
+	public void paintStrip(Graphics g, Rectangle field, Rectangle strip) {
+		paintPoints(g, field, strip);
+	}
+	
+	/**
+	 * draws the points
+	 * @param g graphic object used for drawing
+	 * @param field bounds of the plot
+	 * @param strip if not null only the points whose marks reach into this part of field are drawn
+	 */
+	private void paintPoints(Graphics g, Rectangle field, Rectangle strip) {
+		Color oldColor = g.getColor();
 		g.setColor(color);
 		
-		for(int i = 0; i< pointList[0].length; i++) {
-			drawPoint(pointList[0][i], pointList[1][i], g, field);
+		int pointStep = 1 << detailLevel;
+		//the table may grow while it is drawn, only the rows that are there at the start are drawn
+		int rowCount = pointList.getRowCount();
+		for(int i = 0; i< rowCount; i+=pointStep) {
+			if(strip != null) {
+				int x = plotSheet.toGraphicPoint(pointList.get(0, i), pointList.get(1, i), field)[0];
+				if(x + 3 < strip.x || x - 3 >= strip.x + strip.width)
+					continue;
+			}
+			drawPoint(pointList.get(0, i), pointList.get(1, i), g, field);
 		}
 		g.setColor(oldColor);
 	}
@@ -70,4 +123,38 @@ public class PointDrawer2D implements Drawable {
 		// TODO Auto-generated method stub
 		
 	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.ProgressiveDrawable#setDetailLevel(int)
+	 */
+	@Override
+	public void setDetailLevel(int level) {
+		if(level < 0){
+			System.err.println("PointDrawer2D:Error::Wrong detail level (smaller than 0)");
+			System.exit(-1);
+		}
+		this.detailLevel = Math.min(level, getCoarsestDetailLevel());
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.ProgressiveDrawable#getCoarsestDetailLevel()
+	 */
+	@Override
+	public int getCoarsestDetailLevel() {
+		int level = 0;
+		while((pointList.getRowCount() >> level) > PREVIEW_POINTS)
+			level++;
+		return level;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.ProgressiveDrawable#getNextDetailLevel(int)
+	 */
+	@Override
+	public int getNextDetailLevel(int level) {
+		return level - 1;
+	}
 }
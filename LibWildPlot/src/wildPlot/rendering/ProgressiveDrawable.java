@@ -0,0 +1,39 @@
+/**
+ *
+ */
+package wildPlot.rendering;
+
+/**
+ * Drawables that implement the ProgressiveDrawable interface are able to paint a coarser preview of their image.
+ * The AdvancedPlotSheet paints such drawables first on their coarsest level of detail and then refines them level by
+ * level, every finished level is shown as an intermediate result until the full detail is painted.
+ * Level 0 is the full detail, the same a paint without progressive rendering draws. On every level above the
+ * drawable does roughly half of the work of the level below, for example by sampling only every second column.
+ *
+ * @see wildPlot.rendering.Drawable
+ * @see wildPlot.rendering.AdvancedPlotSheet
+ */
+public interface ProgressiveDrawable extends Drawable {
+
+	/**
+	 * Sets the level of detail of the following paints. This is a hint, a drawable that can not paint the given level
+	 * paints the next finer one it can.
+	 * @param level level of detail, 0 for full detail
+	 */
+	public void setDetailLevel(int level);
+
+	/**
+	 * Returns the level of detail the first preview is painted with. It should be coarse enough that the preview
+	 * is painted in a small part of the time of a full paint, 0 if a preview would not be faster.
+	 * @return coarsest level of detail
+	 */
+	public int getCoarsestDetailLevel();
+
+	/**
+	 * Returns the level of detail that is painted after the given level is finished. Normally this is the next finer
+	 * level, but drawables that gain nothing from intermediate levels may skip them.
+	 * @param level level of detail that was painted last, greater than 0
+	 * @return next level of detail, lower than level
+	 */
+	public int getNextDetailLevel(int level);
+}
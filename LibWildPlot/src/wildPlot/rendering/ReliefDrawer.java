@@ -7,14 +7,21 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
+import java.awt.geom.GeneralPath;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.lang.reflect.Array;
 import java.text.DecimalFormat;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import wildPlot.rendering.interfaces.Function3D;
+import wildPlot.tools.MarchingSquares;
+import wildPlot.tools.QuantileSketch;
 
 /**
  * Draws a relief of a three dimensional function on a two dimensional plot sheet. The relief is drawn either with borders
@@ -25,14 +32,61 @@ import wildPlot.rendering.interfaces.Function3D;
  * @see wildPlot.rendering.PlotSheet
  * @see wildPlot.rendering.interfaces.Function3D 
  */
-public class ReliefDrawer implements Drawable {
+public class ReliefDrawer implements StripDrawable, ProgressiveDrawable {
 	
 	
 	private int pixelSkip = 6;
-	private boolean abortPaint = false;
-	private boolean depthSearchAborted = false;
 	
-	private int threadCnt = 1;
+	/**
+	 * level of detail in progressive rendering, the relief is drawn in squares of pixelSkip*2^detailLevel pixels
+	 */
+	private int detailLevel = 0;
+	
+	/**
+	 * edge length in pixel of the squares the relief is drawn in on the current level of detail
+	 */
+	private int squareSize = pixelSkip;
+	
+	/**
+	 * pixel skip the progressive rendering of an AdvancedPlotSheet refines the relief down to, if it is smaller
+	 * than the pixelSkip
+	 */
+	private int progressivePixelSkip = 1;
+	
+	/**
+	 * the squares of the coarsest level of detail are at most this large and at most 8 times the pixelSkip
+	 */
+	private static final int PREVIEW_SQUARE_SIZE = 32;
+	private volatile boolean abortPaint = false;
+	private volatile boolean depthSearchAborted = false;
+	
+	/**
+	 * percentage of the function values in the plot that lie below the lowest and above the highest border,
+	 * if this is 0 the borders span from the lowest to the highest value
+	 */
+	private double depthPercentile = 0;
+	
+	/**
+	 * if true the borders are quantiles of the function values, so every height region covers about the same area
+	 * of the plot, otherwise the borders are spaced by their function values
+	 */
+	private boolean isQuantileBinning = false;
+	
+	/**
+	 * largest difference between the corner values of a square that is filled with one color in adaptive refinement,
+	 * relative to the range of the relief, adaptive refinement is not used if this is 0
+	 */
+	private double adaptiveThreshold = 0;
+	
+	/**
+	 * edge length in pixel the squares of adaptive refinement start with, at most
+	 */
+	private static final int ADAPTIVE_CELL_SIZE = 32;
+	
+	/**
+	 * edge length in pixel of the tiles a colored relief is rendered in, at most
+	 */
+	private static final int RELIEF_TILE_SIZE = 64;
 	
 	/**
 	 * x-bounds of relief
@@ -44,6 +98,12 @@ public class ReliefDrawer implements Drawable {
 	 */
 	private double[] yrange = {0,0};
 	
+	/**
+	 * plot coordinates of the upper left corner of the last full paint, the squares of squareSize
+	 * are aligned to this point so that painted strips fit to the shifted image of the last paint
+	 */
+	private double[] gridOrigin = null;
+	
 	/**
 	 * this variable will be used to store the lowest function value in the ploting range in the starting resolution
 	 */
@@ -74,12 +134,61 @@ public class ReliefDrawer implements Drawable {
 	
 	private Color[] gradientColors = {Color.white, Color.GREEN.darker(), Color.GREEN.darker().darker(), Color.BLACK};
 	
+	/**
+	 * the gradient colors as packed ARGB integers, these are written directly into the image of the relief
+	 */
+	private int[] gradientRGB = null;
+	
+	/**
+	 * number of entries of the lookup table for height regions
+	 */
+	private static final int REGION_LUT_SIZE = 4096;
+	
+	/**
+	 * lookup table from function values to height regions, the values between f_xLowest and f_xHighest are split 
+	 * into REGION_LUT_SIZE equal parts and each entry holds the region at the lower end of its part
+	 */
+	private int[] regionLUT = null;
+	
+	/**
+	 * factor to get the index of regionLUT from the distance of a function value to f_xLowest
+	 */
+	private double regionLUTScale = 0;
+
+	/**
+	 * function values of the pixels inside of the frame, every pixel is evaluated at most once for the same plot range,
+	 * pixels that have not been evaluated yet hold the NaN value NOT_SAMPLED
+	 */
+	private double[] samples = null;
+
+	/**
+	 * bounds of the pixels in samples in graphic coordinates
+	 */
+	private Rectangle sampleBounds = null;
+
+	/**
+	 * x- and y-bounds of the plot the samples were taken from
+	 */
+	private double[] sampleXRange = null;
+	private double[] sampleYRange = null;
+
+	/**
+	 * bit pattern of the NaN that marks pixels that are not evaluated yet, functions that return NaN return a
+	 * different one, if not those pixels are only evaluated again
+	 */
+	private static final long NOT_SAMPLED = 0x7ff8dead0000beefL;
+
 	/**
 	 * The border function value between where borders are drawn. On colored plot each region between two borders gets
 	 * a unique color.
 	 */
 	private double[] borders = null;
-	private boolean depthScanningIsFinished = false;
+	
+	/**
+	 * monitor the legend waits on until the depth scan of the current plot range has finished, it is notified
+	 * whenever a depth scan finishes
+	 */
+	private final Object depthScanLock = new Object();
 	
 	/**
 	 * determines if this ReliefDrawer draws only one colored borders ore uses color gradient for the relief
@@ -183,8 +292,10 @@ public class ReliefDrawer implements Drawable {
 		abortPaint = false;
 		Color oldColor = g.getColor();
 		Rectangle field = g.getClipBounds();
-		
-		
+		double[] origin = {plotSheet.getxRange()[0], plotSheet.getyRange()[1]};
+		this.gridOrigin = origin;
+		prepareSamples(field);
+
 		if(rangeHasChanged()){
 			try {
 				scanDepth(field);
@@ -195,7 +306,6 @@ public class ReliefDrawer implements Drawable {
 		if(abortPaint)
 			return;
 		
-		this.depthScanningIsFinished = true;
 		if(this.colored){
 			try {
 				drawColoredRelief(g);
@@ -205,7 +315,7 @@ public class ReliefDrawer implements Drawable {
 			}
 		} else{
 			g.setColor(color);
-			drawBorders(g);
+			drawBorders(g, field, field);
 		}
 		
 		
@@ -213,6 +323,96 @@ public class ReliefDrawer implements Drawable {
 		g.setColor(oldColor);
 	}
 	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.StripDrawable#prepareStrips(java.awt.Rectangle, boolean)
+	 */
+	@Override
+	public void prepareStrips(Rectangle field, boolean isShifted) {
+		abortPaint = false;
+		//the shifted part of the relief keeps its colors, so the depth is only scanned if there was no scan before
+		boolean scanNeeded = (isShifted)? this.borders == null : rangeHasChanged() || this.borders == null;
+		if(!isShifted || this.gridOrigin == null) {
+			double[] origin = {plotSheet.getxRange()[0], plotSheet.getyRange()[1]};
+			this.gridOrigin = origin;
+		}
+		prepareSamples(field);
+		if(scanNeeded){
+			if(isShifted)
+				rangeHasChanged();
+			try {
+				scanDepth(field);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		} else if(isShifted) {
+			//the borders are kept for the shifted range, so the legend shows them for it
+			synchronized (depthScanLock) {
+				this.xrange = plotSheet.getxRange().clone();
+				this.yrange = plotSheet.getyRange().clone();
+				depthScanLock.notifyAll();
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.StripDrawable#paintStrip(java.awt.Graphics, java.awt.Rectangle, java.awt.Rectangle)
+	 */
+	@Override
+	public void paintStrip(Graphics g, Rectangle field, Rectangle strip) {
+		if(abortPaint || this.borders == null)
+			return;
+		Color oldColor = g.getColor();
+		
+		if(this.colored){
+			int frame = plotSheet.getFrameThickness();
+			int originX = field.x + frame;
+			int originY = field.y + frame;
+			if(this.gridOrigin != null) {
+				int[] origin = plotSheet.toGraphicPoint(this.gridOrigin[0], this.gridOrigin[1], field);
+				originX = origin[0];
+				originY = origin[1];
+			}
+			int leftLim = alignToPixelSkip(originX, Math.max(field.x + frame, strip.x));
+			int rightLim = Math.min(field.x + field.width - frame, strip.x + strip.width - 1);
+			int upperLim = alignToPixelSkip(originY, Math.max(field.y + frame, strip.y));
+			int lowerLim = Math.min(field.y + field.height - frame, strip.y + strip.height);
+			BufferedImage bimage = new BufferedImage(strip.width, strip.height, BufferedImage.TYPE_INT_ARGB);
+			int[] pixels = ((DataBufferInt)bimage.getRaster().getDataBuffer()).getData();
+			new PartRenderer(pixels, strip, field, originX, originY, leftLim, rightLim, upperLim, lowerLim).run();
+			g.drawImage(bimage, strip.x, strip.y, null);
+		} else{
+			g.setColor(color);
+			drawBorders(g, field, strip);
+		}
+		g.setColor(oldColor);
+	}
+	
+	/**
+	 * the relief is drawn in squares of squareSize starting from the upper left corner of the last full paint,
+	 * this returns the start of the square that contains the given position
+	 * @param origin start of the squares in graphic coordinates, may lie outside of the plot
+	 * @param position position in graphic coordinates
+	 * @return start of the square containing position
+	 */
+	private int alignToPixelSkip(int origin, int position) {
+		return alignToGrid(origin, position, squareSize);
+	}
+	
+	/**
+	 * returns the start of the square of a grid that contains the given position
+	 * @param origin start of the squares in graphic coordinates, may lie outside of the plot
+	 * @param position position in graphic coordinates
+	 * @param size edge length of the squares
+	 * @return start of the square containing position
+	 */
+	private static int alignToGrid(int origin, int position, int size) {
+		int distance = position - origin;
+		int squares = (distance >= 0)? distance/size : -((-distance + size - 1)/size);
+		return origin + squares*size;
+	}
+	
 	/**
 	 * draws relief with color gradient
 	 * @param g graphic object used to draw relief
@@ -220,89 +420,152 @@ public class ReliefDrawer implements Drawable {
 	private void drawColoredRelief(Graphics g) throws InterruptedException {
 		Rectangle field = g.getClipBounds();
 		
-		BufferedImage[] bimages = new BufferedImage[threadCnt];
-		for(int i = 0; i< bimages.length; i++){
-			bimages[i] = new BufferedImage(field.width, field.height, BufferedImage.TYPE_INT_ARGB);
-		}
-		
-//		double[] thisCoordinate = plotSheet.toCoordinatePoint(0, 0, field);
-//		
-//		double thisF_xy;
-//		for(int i = field.x+plotSheet.getFrameThickness() ; i < field.x + field.width -plotSheet.getFrameThickness(); i++) {
-//			for(int j = field.y + +plotSheet.getFrameThickness() ; j < field.y +field.height -plotSheet.getFrameThickness(); j++) {
-//				thisCoordinate = plotSheet.toCoordinatePoint(i, j, field);
-//				thisF_xy = function.f(thisCoordinate[0], thisCoordinate[1]);
-//				g.setColor(getColor(thisF_xy));
-//				g.drawLine(i, j, i, j);
-//				
-//			}
-//		}
-		
-		int length = (field.x + field.width-plotSheet.getFrameThickness()) - (field.x+plotSheet.getFrameThickness());
-		Thread[] threads = new Thread[threadCnt];
-		
-		PartRenderer[] partRenderer = new PartRenderer[threadCnt];
-		
-		Graphics gnew = bimages[0].getGraphics();
-		gnew.setClip(field);
-		partRenderer[0] = new PartRenderer(gnew, field.x+plotSheet.getFrameThickness(), field.x + plotSheet.getFrameThickness()+ length/threadCnt);
-		threads[0] = new Thread(partRenderer[0]);
-		for(int i = 1; i< threads.length-1; i++){
-			gnew = bimages[i].getGraphics();
-			gnew.setClip(field);
-			partRenderer[i] = new PartRenderer(gnew, field.x + plotSheet.getFrameThickness() + length*i/threadCnt +1, field.x+ plotSheet.getFrameThickness() + length*(i+1)/threadCnt);
-			threads[i] = new Thread(partRenderer[i]);
-		}
-		if(threadCnt > 1){
-		gnew = bimages[threadCnt-1].getGraphics();
-		gnew.setClip(field);
-		partRenderer[threadCnt-1] = new PartRenderer(gnew, field.x + plotSheet.getFrameThickness() + length*(threadCnt-1)/threadCnt +1, field.x+ plotSheet.getFrameThickness() + length);
-		threads[threadCnt-1] = new Thread(partRenderer[threadCnt-1]);
-		}
-		for(Thread thread : threads) {
-			thread.start();
-		}
+		//all tiles write their squares directly into the pixels of the same image, tiles never overlap
+		BufferedImage bimage = new BufferedImage(field.width, field.height, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = ((DataBufferInt)bimage.getRaster().getDataBuffer()).getData();
 		
-		for(Thread thread : threads) {
-			thread.join();
-		}
-		
-		for(BufferedImage bimage: bimages){
-			((Graphics2D)g).drawImage(bimage, null, 0, 0);
-		}
+		int frame = plotSheet.getFrameThickness();
+		new TileRenderer(pixels, field, field.x + frame, field.x + field.width - frame, field.y + frame, field.y + field.height - frame).runParallel();
 		
-		//
+		g.drawImage(bimage, field.x, field.y, null);
 	}
 	
 	/**
 	 * draws bordered relief plot
 	 * @param g graphic object used to draw relief
+	 * @param field bounds of the plot
+	 * @param region part of field where the borders are drawn
 	 */
-	private void drawBorders(Graphics g) {
-		Rectangle field = g.getClipBounds();
-		double[] thisCoordinate = plotSheet.toCoordinatePoint(0, 0, field);
-		double[] upToThisCoordinate = plotSheet.toCoordinatePoint(0, 0, field);
-		double[] leftToThisCoordinate = plotSheet.toCoordinatePoint(0, 0, field);
-		
-		double thisF_xy;
-		double upToThisF_xy;
-		double leftToThisF_xy;
-		
-		for(int i = field.x+plotSheet.getFrameThickness() + 1; i < field.x + field.width-plotSheet.getFrameThickness(); i++) {
-			for(int j = field.y+plotSheet.getFrameThickness() + 1; j < field.y +field.height-plotSheet.getFrameThickness(); j++) {
-				thisCoordinate = plotSheet.toCoordinatePoint(i, j, field);
-				upToThisCoordinate = plotSheet.toCoordinatePoint(i, j-1, field);
-				leftToThisCoordinate = plotSheet.toCoordinatePoint(i-1, j, field);
-				thisF_xy = function.f(thisCoordinate[0], thisCoordinate[1]);
-				upToThisF_xy = function.f(upToThisCoordinate[0], upToThisCoordinate[1]);
-				leftToThisF_xy = function.f(leftToThisCoordinate[0], leftToThisCoordinate[1]);
-				
-				if(onBorder(thisF_xy, upToThisF_xy) || onBorder(thisF_xy, leftToThisF_xy)) {
-					g.drawLine(i, j, i, j);
+	private void drawBorders(Graphics g, Rectangle field, Rectangle region) {
+		//one pixel more on each side, so the lines of neighboring strips meet
+		Rectangle grid = new Rectangle(region.x - 1, region.y - 1, region.width + 2, region.height + 2).intersection(this.sampleBounds);
+		if(grid.width < 2 || grid.height < 2)
+			return;
+		Graphics2D g2d = (Graphics2D)g;
+		Vector<Vector<double[]>> contourLines = traceBorders(field, grid);
+		for(Vector<double[]> levelLines : contourLines) {
+			for(double[] line : levelLines) {
+				GeneralPath path = new GeneralPath();
+				path.moveTo((float)(grid.x + line[0]), (float)(grid.y + line[1]));
+				for(int i = 2; i < line.length; i += 2) {
+					path.lineTo((float)(grid.x + line[i]), (float)(grid.y + line[i+1]));
 				}
-				
+				g2d.draw(path);
+			}
+		}
+	}
+
+	/**
+	 * calculates the borders between the height regions with the marching squares algorithm on the function values
+	 * of the pixels
+	 * @param field bounds of the plot
+	 * @param grid pixels the borders are calculated on, must lie inside of sampleBounds
+	 * @return lines of every border except the upper end of the last region, their points are relative to the upper
+	 * left corner of grid
+	 */
+	private Vector<Vector<double[]>> traceBorders(Rectangle field, Rectangle grid) {
+		double[] values = sampleGrid(field, grid);
+		return MarchingSquares.contours(values, grid.width, grid.height, Arrays.copyOf(borders, borders.length-1));
+	}
+
+	/**
+	 * calculates the borders between the height regions as lines in plot coordinates, the same lines are drawn
+	 * if this ReliefDrawer is not colored, so they can be exported as vector graphics
+	 * @param field bounds of the plot in graphic coordinates, the borders are calculated with the resolution of its pixels
+	 * @return lines of every border from the lowest to the highest, a line is an array of alternating x and y values
+	 */
+	public Vector<Vector<double[]>> getContourLines(Rectangle field) {
+		abortPaint = false;
+		prepareSamples(field);
+		if(rangeHasChanged() || this.borders == null){
+			try {
+				scanDepth(field);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		Vector<Vector<double[]>> contourLines = new Vector<Vector<double[]>>();
+		if(this.sampleBounds.width < 2 || this.sampleBounds.height < 2)
+			return contourLines;
+		Rectangle grid = this.sampleBounds;
+		for(Vector<double[]> levelLines : traceBorders(field, grid)) {
+			Vector<double[]> plotLines = new Vector<double[]>();
+			for(double[] line : levelLines) {
+				double[] plotLine = new double[line.length];
+				for(int i = 0; i < line.length; i += 2) {
+					//positions between two pixels are interpolated between their coordinates
+					int x = (int)Math.floor(line[i]);
+					int y = (int)Math.floor(line[i+1]);
+					double[] coordinate = plotSheet.toCoordinatePoint(grid.x + x, grid.y + y, field);
+					double[] nextCoordinate = plotSheet.toCoordinatePoint(grid.x + x + 1, grid.y + y + 1, field);
+					plotLine[i] = coordinate[0] + (line[i] - x)*(nextCoordinate[0] - coordinate[0]);
+					plotLine[i+1] = coordinate[1] + (line[i+1] - y)*(nextCoordinate[1] - coordinate[1]);
+				}
+				plotLines.add(plotLine);
 			}
+			contourLines.add(plotLines);
+		}
+		return contourLines;
+	}
+
+	/**
+	 * sets up the function values of the pixels for the given plot, if the plot has not changed the values that
+	 * are already evaluated are kept
+	 * @param field bounds of the plot
+	 */
+	private void prepareSamples(Rectangle field) {
+		int frame = plotSheet.getFrameThickness();
+		Rectangle bounds = new Rectangle(field.x + frame, field.y + frame, Math.max(field.width - 2*frame, 0), Math.max(field.height - 2*frame, 0));
+		double[] xRange = plotSheet.getxRange();
+		double[] yRange = plotSheet.getyRange();
+		if(bounds.equals(this.sampleBounds) && Arrays.equals(xRange, this.sampleXRange) && Arrays.equals(yRange, this.sampleYRange))
+			return;
+		if(this.samples == null || this.samples.length != bounds.width*bounds.height)
+			this.samples = new double[bounds.width*bounds.height];
+		Arrays.fill(this.samples, Double.longBitsToDouble(NOT_SAMPLED));
+		this.sampleBounds = bounds;
+		this.sampleXRange = xRange.clone();
+		this.sampleYRange = yRange.clone();
+	}
+
+	/**
+	 * get the function value of a pixel, pixels inside of the frame are only evaluated once
+	 * @param x x-position in graphic coordinates
+	 * @param y y-position in graphic coordinates
+	 * @param field bounds of the plot
+	 * @return function value
+	 */
+	private double sample(int x, int y, Rectangle field) {
+		Rectangle bounds = this.sampleBounds;
+		double[] samples = this.samples;
+		int index = -1;
+		if(x >= bounds.x && y >= bounds.y && x < bounds.x + bounds.width && y < bounds.y + bounds.height) {
+			index = (y - bounds.y)*bounds.width + (x - bounds.x);
+			double f_xy = samples[index];
+			if(Double.doubleToRawLongBits(f_xy) != NOT_SAMPLED)
+				return f_xy;
 		}
+		double[] coordinate = plotSheet.toCoordinatePoint(x, y, field);
+		double f_xy = function.f(coordinate[0], coordinate[1]);
+		if(index >= 0)
+			samples[index] = f_xy;
+		return f_xy;
+	}
+
+	/**
+	 * get the function values of all pixels of a rectangle
+	 * @param field bounds of the plot
+	 * @param grid the pixels, must lie inside of sampleBounds
+	 * @return function values row by row, if grid is sampleBounds this is the shared array of the samples
+	 */
+	private double[] sampleGrid(Rectangle field, Rectangle grid) {
+		double[] values = (grid.equals(this.sampleBounds))? this.samples : new double[grid.width*grid.height];
+		for(int j = 0; j < grid.height; j++) {
+			for(int i = 0; i < grid.width; i++) {
+				values[j*grid.width + i] = sample(grid.x + i, grid.y + j, field);
+			}
+		}
+		return values;
 	}
 	
 	/**
@@ -318,6 +581,8 @@ public class ReliefDrawer implements Drawable {
 		tester &= plotSheet.getyRange()[1] == this.yrange[1];
 		
 		if(!tester) {
+			//the borders do not belong to the new range until it is scanned
+			this.depthSearchAborted = true;
 			this.xrange = plotSheet.getxRange().clone();
 			this.yrange = plotSheet.getyRange().clone();
 		}
@@ -331,43 +596,17 @@ public class ReliefDrawer implements Drawable {
 	 */
 	private void scanDepth(Rectangle field) throws InterruptedException {
 		depthSearchAborted = true;
-		double[] coordinate = plotSheet.toCoordinatePoint(0, 0, field);
-		double f_xy = function.f(coordinate[0], coordinate[1]);
-		this.f_xHighest = f_xy;
-		this.f_xLowest 	= f_xy;
-		
-		int length = (field.x + field.width-plotSheet.getFrameThickness()) - (field.x+plotSheet.getFrameThickness());
-		Thread[] threads = new Thread[threadCnt];
-		
-		int stepSize = length/threadCnt;
-		
-		DepthSearcher[] dSearcher = new DepthSearcher[threadCnt];
-		
-		int leftLim = field.x+plotSheet.getFrameThickness();
-		int rightLim = (field.x + plotSheet.getFrameThickness()+ (stepSize));
-		dSearcher[0] = new DepthSearcher(field,leftLim ,rightLim );
-		threads[0] = new Thread(dSearcher[0]);
-		for(int i = 1; i< threads.length-1; i++){
-			dSearcher[i] = new DepthSearcher(field, field.x + plotSheet.getFrameThickness() + stepSize*i +1, field.x+ plotSheet.getFrameThickness() + stepSize*(i+1));
-			threads[i] = new Thread(dSearcher[i]);
-		}
-		if(threadCnt>1){
-			dSearcher[threadCnt-1] = new DepthSearcher(field, field.x + plotSheet.getFrameThickness() + stepSize*(threadCnt-1) +1, field.x+ plotSheet.getFrameThickness() + length);
-			threads[threadCnt-1] = new Thread(dSearcher[threadCnt-1]);
-		}
-		for(Thread thread : threads) {
-			thread.start();
-		}
-		
-		for(Thread thread : threads) {
-			thread.join();
-		}
+		int frame = plotSheet.getFrameThickness();
+		DepthSearcher depthSearcher = new DepthSearcher(field, field.x + frame, field.x + field.width - frame, field.y + frame, field.y + field.height - frame);
+		depthSearcher.runParallel();
 		
-		for(DepthSearcher searcher : dSearcher ){
-			if(searcher.getF_xHighest() > this.f_xHighest)
-				this.f_xHighest = searcher.getF_xHighest();
-			if(searcher.getF_xLowest() < this.f_xLowest)
-				this.f_xLowest = searcher.getF_xLowest();
+		if(depthSearcher.hasFiniteValues()) {
+			this.f_xLowest = depthSearcher.getF_xLowest();
+			this.f_xHighest = depthSearcher.getF_xHighest();
+		} else {
+			//the function is not defined anywhere in the plot
+			this.f_xLowest = 0;
+			this.f_xHighest = 0;
 		}
 		
 		//System.err.println(this.f_xHighest + " : " + this.f_xLowest);
@@ -375,41 +614,103 @@ public class ReliefDrawer implements Drawable {
 		borders = new double[this.heightRegionCount];
 		double steps = (this.f_xHighest - this.f_xLowest)/this.heightRegionCount;
 		
-		for(int i = 0; i < borders.length ; i++) {
-			borders[i] =  this.f_xLowest +  (this.f_xHighest - this.f_xLowest)*Math.pow((1.0/this.heightRegionCount)*(i+1.0), gradientCurveFactor);
-			//System.err.println(borders[i]+" " + (this.f_xHighest - this.f_xLowest)*Math.pow((1.0/this.heightRegionCount)*(i+1.0), gradientCurveFactor));
+		if(this.isQuantileBinning && depthSearcher.getSketch().getCount() > 0) {
+			//the same curve factor applies to the ranks of the quantiles, the highest border stays the highest value
+			double lowerRank = this.depthPercentile/100;
+			double[] ranks = new double[borders.length];
+			for(int i = 0; i < ranks.length ; i++) {
+				ranks[i] = lowerRank + (1 - 2*lowerRank)*Math.pow((1.0/this.heightRegionCount)*(i+1.0), gradientCurveFactor);
+			}
+			double[] quantiles = depthSearcher.getSketch().getQuantiles(ranks);
+			for(int i = 0; i < borders.length - 1 ; i++) {
+				borders[i] = Math.min(Math.max(quantiles[i], this.f_xLowest), this.f_xHighest);
+			}
+			borders[borders.length - 1] = this.f_xHighest;
+		} else {
+			for(int i = 0; i < borders.length ; i++) {
+				borders[i] =  this.f_xLowest +  (this.f_xHighest - this.f_xLowest)*Math.pow((1.0/this.heightRegionCount)*(i+1.0), gradientCurveFactor);
+				//System.err.println(borders[i]+" " + (this.f_xHighest - this.f_xLowest)*Math.pow((1.0/this.heightRegionCount)*(i+1.0), gradientCurveFactor));
+			}
+		}
+		buildRegionLUT();
+		if(this.gradientRGB == null) {
+			this.gradientRGB = new int[this.gradientColors.length];
+			for(int i = 0; i < this.gradientRGB.length; i++) {
+				this.gradientRGB[i] = this.gradientColors[i].getRGB();
+			}
 		}
 		if(!this.abortPaint){
-			depthSearchAborted = false;
-			depthScanningIsFinished = true;
+			synchronized (depthScanLock) {
+				depthSearchAborted = false;
+				depthScanLock.notifyAll();
+			}
 		}
 	}
 	
 	/**
-	 * returns true if a pixel on plot is directly on a border which has to be drawn
-	 * @param f_xy the current function value
-	 * @param f_xyNext the function value of a neighbor
-	 * @return true if between those two function values a border has to be drawn
+	 * @return true if the borders belong to the current range of the plot
 	 */
-	private boolean onBorder(double f_xy, double f_xyNext) {
-		double lowerBorder = this.f_xLowest;
-		double higherBorder = this.f_xHighest;
-		
-		for(int i = 0 ; i< borders.length; i++) {
-			higherBorder = borders[i];
-			if((f_xy >= lowerBorder && f_xy < higherBorder) || (f_xyNext >= lowerBorder && f_xyNext < higherBorder)) {
-				
-				if((f_xy >= lowerBorder && f_xy < higherBorder) && (f_xyNext >= lowerBorder && f_xyNext < higherBorder)) {
-					
-					return false;
-				}
-				return true;
-			}
-			lowerBorder = higherBorder;
+	private boolean isDepthScanned() {
+		return this.borders != null && !this.depthSearchAborted 
+				&& Arrays.equals(this.xrange, plotSheet.getxRange()) && Arrays.equals(this.yrange, plotSheet.getyRange());
+	}
+	
+	/**
+	 * builds the lookup table for height regions from the current borders
+	 */
+	private void buildRegionLUT() {
+		int[] regionLUT = new int[REGION_LUT_SIZE];
+		double range = this.f_xHighest - this.f_xLowest;
+		int region = 0;
+		for(int i = 0; i < regionLUT.length; i++) {
+			double value = this.f_xLowest + range*i/REGION_LUT_SIZE;
+			while(region < borders.length-1 && value >= borders[region])
+				region++;
+			regionLUT[i] = region;
 		}
-		
-		return true;
-		
+		this.regionLUTScale = (range > 0)? REGION_LUT_SIZE/range : 0;
+		this.regionLUT = regionLUT;
+	}
+	
+	/**
+	 * get the height region of a function value, this is the first region whose border is above the value,
+	 * values above all borders belong to the last region
+	 * @param f_xy function value
+	 * @return index of the region in borders and gradientColors
+	 */
+	private int getRegion(double f_xy) {
+		if(f_xy != f_xy)
+			return borders.length-1; //NaN
+		int index = (int)((f_xy - this.f_xLowest)*this.regionLUTScale);
+		if(index < 0)
+			index = 0;
+		else if(index >= REGION_LUT_SIZE)
+			index = REGION_LUT_SIZE-1;
+		int region = this.regionLUT[index];
+		//a border may lie inside of the part of the table entry, then the region is corrected
+		while(region > 0 && f_xy < borders[region-1])
+			region--;
+		while(region < borders.length-1 && f_xy >= borders[region])
+			region++;
+		return region;
+	}
+	
+	/**
+	 * returns true if a square with the given corner values can be filled with one color, that is if all corners lie
+	 * in the same height region and do not differ more than the threshold of adaptive refinement
+	 * @param upperLeft function value of the upper left corner
+	 * @param upperRight function value of the upper right corner
+	 * @param lowerLeft function value of the lower left corner
+	 * @param lowerRight function value of the lower right corner
+	 * @return true if the square is uniform
+	 */
+	private boolean isUniform(double upperLeft, double upperRight, double lowerLeft, double lowerRight) {
+		double lowest = Math.min(Math.min(upperLeft, upperRight), Math.min(lowerLeft, lowerRight));
+		double highest = Math.max(Math.max(upperLeft, upperRight), Math.max(lowerLeft, lowerRight));
+		//also false if a corner is NaN
+		if(!(highest - lowest <= this.adaptiveThreshold*(this.f_xHighest - this.f_xLowest)))
+			return false;
+		return getRegion(lowest) == getRegion(highest);
 	}
 	
 	/**
@@ -418,31 +719,22 @@ public class ReliefDrawer implements Drawable {
 	 * @return color that corresponds to the function value
 	 */
 	private Color getColor(double f_xy) {
-		double lowerBorder = this.f_xLowest;
-		double higherBorder = this.f_xHighest;
-		try{
-			if(borders == null){
-				System.err.println("!!!!!!!!!!!!!!!!!!! Borders null");
-			}
-			for(int i = 0 ; i< borders.length; i++) {
-				higherBorder = borders[i];
-				if((f_xy >= lowerBorder && f_xy < higherBorder)) {
-					return this.gradientColors[i];
-					
-				}
-				lowerBorder = higherBorder;
-			}
-		} catch(NullPointerException e){
-			e.printStackTrace();
-			System.err.println("!!!!!!!!!!!!: " + borders.length);
-			System.exit(-1);
+		if(borders == null){
+			System.err.println("!!!!!!!!!!!!!!!!!!! Borders null");
 		}
-		
-		
-		return (f_xy < borders[0])? this.gradientColors[0] : this.gradientColors[this.gradientColors.length-1];
+		return this.gradientColors[getRegion(f_xy)];
 		
 	}
 	
+	/**
+	 * get the gradient color for the corresponding function value as packed ARGB integer
+	 * @param f_xy function value
+	 * @return color that corresponds to the function value
+	 */
+	private int getRGB(double f_xy) {
+		return this.gradientRGB[getRegion(f_xy)];
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see rendering.Drawable#isOnFrame()
@@ -458,8 +750,57 @@ public class ReliefDrawer implements Drawable {
 	
 	
 	
+	/**
+	 * this has no effect anymore, the relief is scanned and rendered in tiles by all processors
+	 * @param threadCnt number of threads
+	 * @deprecated the number of threads is the number of processors
+	 */
+	@Deprecated
 	public void setThreadCnt(int threadCnt) {
-		this.threadCnt = threadCnt;
+	}
+	
+	/**
+	 * let the borders span between percentiles of the function values instead of the lowest and the highest value,
+	 * so a few extreme values do not take up most of the colors, values outside get the color of the first or last region.
+	 * The percentiles are estimated with the QuantileSketch of the depth scan.
+	 * @param percentile percentage of the function values below the lowest border and above the highest border 
+	 * (greater than 0 and less than 50)
+	 */
+	public void setDepthPercentile(double percentile) {
+		if(percentile <= 0 || percentile >= 50){
+			System.err.println("ReliefDrawer:Error::Wrong percentile (not between 0 and 50)");
+			System.exit(-1);
+		}
+		this.depthPercentile = percentile;
+		this.depthSearchAborted = true; //scan again with the next paint
+	}
+	
+	/**
+	 * let the borders span from the lowest to the highest function value (standard behavior)
+	 */
+	public void unsetDepthPercentile() {
+		this.depthPercentile = 0;
+		this.depthSearchAborted = true;
+	}
+	
+	/**
+	 * place the borders at quantiles of the function values instead of spacing them by value, so every height region
+	 * covers about the same part of the plot and a single spike does not take up most of the colors.
+	 * The quantiles are estimated from the samples of the depth scan with a QuantileSketch that every tile fills 
+	 * on its own, the gradient curve factor is applied to the ranks of the quantiles.
+	 * @see wildPlot.tools.QuantileSketch
+	 */
+	public void setQuantileBinning() {
+		this.isQuantileBinning = true;
+		this.depthSearchAborted = true;
+	}
+	
+	/**
+	 * space the borders by function value (standard behavior)
+	 */
+	public void unsetQuantileBinning() {
+		this.isQuantileBinning = false;
+		this.depthSearchAborted = true;
 	}
 
 
@@ -477,7 +818,7 @@ public class ReliefDrawer implements Drawable {
 		 */
 		private DecimalFormat df =   new DecimalFormat( "##0.00#" );	
 		private DecimalFormat dfScience =   new DecimalFormat( "0.0###E0" );
-		private boolean isAborted = false;
+		private volatile boolean isAborted = false;
 		private boolean isScientific = false;
 		
 		/*
@@ -486,20 +827,22 @@ public class ReliefDrawer implements Drawable {
 		 */
 		public void paint(Graphics g) {
 			isAborted = false;
-			while(!ReliefDrawer.this.depthScanningIsFinished || rangeHasChanged()){
-				if(this.isAborted){
-					System.err.println("no relief legend will be drawn!");
-					return;
-				}
-				try {
-					
-					Thread.sleep(100);
-				} catch (InterruptedException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
+			//the legend shows the borders of the current range, so it waits until the relief has scanned it,
+			//a PlotSheet only starts the legend after the relief if the legend depends on it
+			synchronized (depthScanLock) {
+				while(!isDepthScanned()){
+					if(this.isAborted){
+						System.err.println("no relief legend will be drawn!");
+						return;
+					}
+					try {
+						depthScanLock.wait();
+					} catch (InterruptedException e) {
+						e.printStackTrace();
+						return;
+					}
 				}
 			}
-			ReliefDrawer.this.depthScanningIsFinished = false;
 			Color oldColor = g.getColor();
 			Rectangle field = g.getClipBounds();
 			double deltaZ = (ReliefDrawer.this.yrange[1] - ReliefDrawer.this.yrange[0])/ReliefDrawer.this.borders.length;
@@ -580,102 +923,343 @@ public class ReliefDrawer implements Drawable {
 
 		@Override
 		public void abortAndReset() {
-			isAborted = true;
-			
+			synchronized (depthScanLock) {
+				isAborted = true;
+				depthScanLock.notifyAll();
+			}
 		}
 		
 	}
-	private class DepthSearcher implements Runnable{
-
-		double f_xHighest = 0;
-		double f_xLowest = 0;
+	/**
+	 * searches the lowest and highest finite function value on the grid of squareSize squares, every tile is reduced
+	 * to its own minimum and maximum which are then merged, NaN and infinite values are left out
+	 */
+	private class DepthSearcher extends TileWork{
 		
 		Rectangle field = null;
+		double f_xHighest = Double.NEGATIVE_INFINITY;
+		double f_xLowest = Double.POSITIVE_INFINITY;
+		
+		/**
+		 * sketch of the quantiles of all finite values, only filled if the borders are quantiles or the bounds are
+		 * percentiles
+		 */
+		QuantileSketch sketch = new QuantileSketch();
+		
+		/**
+		 * @param field bounds of the plot
+		 * @param leftLim first column (inclusive)
+		 * @param rightLim last column (inclusive)
+		 * @param upperLim first row (inclusive)
+		 * @param lowerLim last row (exclusive)
+		 */
+		public DepthSearcher(Rectangle field, int leftLim, int rightLim, int upperLim, int lowerLim) {
+			super(leftLim, rightLim, upperLim, lowerLim);
+			this.field = field;
+		}
+		
+		@Override
+		void work(int left, int right, int upper, int lower) {
+			double lowest = Double.POSITIVE_INFINITY;
+			double highest = Double.NEGATIVE_INFINITY;
+			//every tile fills its own sketch, so the threads only meet when it is merged
+			QuantileSketch tileSketch = (isQuantileBinning || depthPercentile > 0)? new QuantileSketch() : null;
+			
+			for(int i = left; i <= right; i+=squareSize) {
+				for(int j = upper; j < lower; j+=squareSize) {
+					if(abortPaint)
+						return;
+					double f_xy = sample(i, j, field);
+					if(Double.isNaN(f_xy) || Double.isInfinite(f_xy))
+						continue;
+					if(f_xy < lowest)
+						lowest = f_xy;
+					if(f_xy > highest)
+						highest = f_xy;
+					if(tileSketch != null)
+						tileSketch.add(f_xy);
+				}
+			}
+			
+			synchronized (this) {
+				if(lowest < this.f_xLowest)
+					this.f_xLowest = lowest;
+				if(highest > this.f_xHighest)
+					this.f_xHighest = highest;
+				if(tileSketch != null)
+					this.sketch.merge(tileSketch);
+			}
+		}
+		
+		/**
+		 * @return sketch of the quantiles of all finite values, empty if the borders are not quantiles and the bounds
+		 * are not percentiles
+		 */
+		public synchronized QuantileSketch getSketch() {
+			return sketch;
+		}
+		
+		/**
+		 * @return true if any finite function value was found
+		 */
+		public synchronized boolean hasFiniteValues() {
+			return this.f_xLowest <= this.f_xHighest;
+		}
+		
+		/**
+		 * @return lowest finite value or the lower percentile if percentiles are used
+		 */
+		public synchronized double getF_xLowest() {
+			if(depthPercentile > 0 && sketch.getCount() > 0)
+				return sketch.getQuantile(depthPercentile/100);
+			return f_xLowest;
+		}
+		
+		/**
+		 * @return highest finite value or the upper percentile if percentiles are used
+		 */
+		public synchronized double getF_xHighest() {
+			if(depthPercentile > 0 && sketch.getCount() > 0)
+				return sketch.getQuantile(1 - depthPercentile/100);
+			return f_xHighest;
+		}
+	}
+	
+	/**
+	 * work on the plot that is split into tiles, the tiles are taken one by one from a shared counter by every thread 
+	 * that runs it, so a thread that gets cheap tiles takes more of them and no thread waits while others still have work
+	 */
+	private abstract class TileWork implements Runnable{
+		
 		int leftLim = 0;
 		int rightLim = 0;
-
-		public DepthSearcher(Rectangle field, int leftLim, int rightLim) {
+		int upperLim = 0;
+		int lowerLim = 0;
+		int tileSize = 0;
+		int tileColumns = 0;
+		int tileCount = 0;
+		
+		/**
+		 * index of the next tile that is not taken yet
+		 */
+		AtomicInteger nextTile = new AtomicInteger();
+		
+		/**
+		 * counts down the tiles that are not finished yet
+		 */
+		CountDownLatch unfinishedTiles = null;
+		
+		/**
+		 * @param leftLim first column (inclusive), the tiles start here
+		 * @param rightLim last column (inclusive)
+		 * @param upperLim first row (inclusive), the tiles start here
+		 * @param lowerLim last row (exclusive)
+		 */
+		public TileWork(int leftLim, int rightLim, int upperLim, int lowerLim) {
 			super();
-			this.field = field;
 			this.leftLim = leftLim;
 			this.rightLim = rightLim;
+			this.upperLim = upperLim;
+			this.lowerLim = lowerLim;
+			//tiles are made of whole squares of adaptive refinement, so no square is split between two tiles
+			this.tileSize = squareSize;
+			while(this.tileSize*2 <= RELIEF_TILE_SIZE)
+				this.tileSize *= 2;
+			if(rightLim >= leftLim && lowerLim > upperLim) {
+				this.tileColumns = (rightLim - leftLim)/tileSize + 1;
+				this.tileCount = this.tileColumns*((lowerLim - upperLim + tileSize - 1)/tileSize);
+			}
+			this.unfinishedTiles = new CountDownLatch(this.tileCount);
 		}
-
-
+		
+		/**
+		 * does the work for one tile, the squares of squareSize that start inside of the limits belong to it
+		 * @param left first column (inclusive)
+		 * @param right last column (inclusive)
+		 * @param upper first row (inclusive)
+		 * @param lower last row (exclusive)
+		 */
+		abstract void work(int left, int right, int upper, int lower);
+		
 		@Override
 		public void run() {
-			double[] coordinate = plotSheet.toCoordinatePoint(0, 0, field);
-			double f_xy = function.f(coordinate[0], coordinate[1]);
-			this.f_xHighest = f_xy;
-			this.f_xLowest 	= f_xy;
-			
-			//scan for minimum and maximum f(x,y) in the given range
-			for(int i = leftLim; i <= rightLim; i+=pixelSkip) {
-				for(int j = field.y+plotSheet.getFrameThickness(); j < field.y +field.height-plotSheet.getFrameThickness(); j+=pixelSkip) {
-					if(abortPaint){
-						return;
-					}
-					coordinate = plotSheet.toCoordinatePoint(i, j, field);
-					f_xy = function.f(coordinate[0], coordinate[1]);
-					if(f_xy < this.f_xLowest && f_xy != Double.NaN && f_xy != Double.NEGATIVE_INFINITY && f_xy != Double.POSITIVE_INFINITY ) {
-						this.f_xLowest 	= f_xy;
-					} 
-					if(f_xy > this.f_xHighest && f_xy != Double.NaN && f_xy != Double.NEGATIVE_INFINITY && f_xy != Double.POSITIVE_INFINITY ) {
-						this.f_xHighest 	= f_xy;
-					}
-					
-					
+			int tile;
+			while((tile = nextTile.getAndIncrement()) < tileCount) {
+				try {
+					if(abortPaint)
+						continue;
+					int left = leftLim + (tile%tileColumns)*tileSize;
+					int upper = upperLim + (tile/tileColumns)*tileSize;
+					work(left, Math.min(left + tileSize - 1, rightLim), upper, Math.min(upper + tileSize, lowerLim));
+				} finally {
+					unfinishedTiles.countDown();
 				}
 			}
-			
 		}
-
-		public double getF_xHighest() {
-			return f_xHighest;
+		
+		/**
+		 * works on all tiles with this thread and helpers from the tile pool and waits until all tiles are done
+		 */
+		public void runParallel() throws InterruptedException {
+			int helpers = Math.min(Runtime.getRuntime().availableProcessors() - 1, tileCount - 1);
+			ExecutorService pool = PlotSheet.getTilePool();
+			for(int i = 0; i < helpers; i++) {
+				pool.execute(this);
+			}
+			run();
+			unfinishedTiles.await();
 		}
-
-
-		public double getF_xLowest() {
-			return f_xLowest;
+	}
+	
+	/**
+	 * renders a colored relief in tiles that all write into the pixels of the same image
+	 */
+	private class TileRenderer extends TileWork{
+		
+		int[] pixels = null;
+		Rectangle field = null;
+		
+		/**
+		 * renderer for the tiles of the relief
+		 * @param pixels pixels of a TYPE_INT_ARGB image that covers field
+		 * @param field bounds of the plot
+		 * @param leftLim first column (inclusive), the squares start here
+		 * @param rightLim last column (inclusive)
+		 * @param upperLim first row (inclusive), the squares start here
+		 * @param lowerLim last row (exclusive)
+		 */
+		public TileRenderer(int[] pixels, Rectangle field, int leftLim, int rightLim, int upperLim, int lowerLim) {
+			super(leftLim, rightLim, upperLim, lowerLim);
+			this.pixels = pixels;
+			this.field = field;
+		}
+		
+		@Override
+		void work(int left, int right, int upper, int lower) {
+			new PartRenderer(pixels, field, field, leftLim, upperLim, left, right, upper, lower).run();
 		}
-
 	}
 	
 	private class PartRenderer implements Runnable{
 
-		Graphics g = null;
+		int[] pixels = null;
+		Rectangle raster = null;
 		Rectangle field = null;
+		int originX = 0;
+		int originY = 0;
 		int leftLim = 0;
 		int rightLim = 0;
-
-		public PartRenderer(Graphics g, int leftLim, int rightLim) {
+		int upperLim = 0;
+		int lowerLim = 0;
+		
+		/**
+		 * renderer for a part of the relief that writes the colors directly into the pixels of an image
+		 * @param pixels pixels of a TYPE_INT_ARGB image
+		 * @param raster bounds of the image in graphic coordinates, nothing outside of it is drawn
+		 * @param field bounds of the plot
+		 * @param originX first column of the grid of squares, the squares of adaptive refinement are aligned to it
+		 * @param originY first row of the grid of squares
+		 * @param leftLim first column (inclusive)
+		 * @param rightLim last column (inclusive)
+		 * @param upperLim first row (inclusive)
+		 * @param lowerLim last row (exclusive)
+		 */
+		public PartRenderer(int[] pixels, Rectangle raster, Rectangle field, int originX, int originY, int leftLim, int rightLim, int upperLim, int lowerLim) {
 			super();
-			this.field = g.getClipBounds();
+			this.pixels = pixels;
+			this.raster = raster;
+			this.field = field;
+			this.originX = originX;
+			this.originY = originY;
 			this.leftLim = leftLim;
 			this.rightLim = rightLim;
-			this.g = g;
+			this.upperLim = upperLim;
+			this.lowerLim = lowerLim;
 		}
 
 
 		@Override
 		public void run() {
-			double[] thisCoordinate = plotSheet.toCoordinatePoint(0, 0, field);
+			if(adaptiveThreshold > 0) {
+				runAdaptive();
+				return;
+			}
+			int rasterRight = raster.x + raster.width;
+			int rasterBottom = raster.y + raster.height;
 			
 			double thisF_xy;
-			for(int i = leftLim ; i <= rightLim; i+=pixelSkip) {
-				for(int j = field.y + +plotSheet.getFrameThickness() ; j < field.y +field.height -plotSheet.getFrameThickness(); j+=pixelSkip) {
+			for(int i = leftLim ; i <= rightLim; i+=squareSize) {
+				//columns of this square inside of the image
+				int x0 = Math.max(i, raster.x);
+				int x1 = Math.min(i + squareSize, rasterRight);
+				for(int j = upperLim ; j < lowerLim; j+=squareSize) {
 					if(abortPaint)
 						return;
-					thisCoordinate = plotSheet.toCoordinatePoint(i, j, field);
-					thisF_xy = function.f(thisCoordinate[0], thisCoordinate[1]);
-					g.setColor(getColor(thisF_xy));
-					g.fillRect(i, j, pixelSkip, pixelSkip);
-//					g.drawLine(i, j, i, j);
-					
+					thisF_xy = sample(i, j, field);
+					int rgb = getRGB(thisF_xy);
+					int y1 = Math.min(j + squareSize, rasterBottom);
+					for(int y = Math.max(j, raster.y); y < y1 && x0 < x1; y++) {
+						int row = (y - raster.y)*raster.width - raster.x;
+						Arrays.fill(pixels, row + x0, row + x1, rgb);
+					}
 				}
 			}
 			
 		}
+		
+		/**
+		 * renders the part with adaptive refinement, squares are only split into four if their corners lie in 
+		 * different height regions or differ more than the threshold, all other squares are filled at once
+		 */
+		private void runAdaptive() {
+			int cellSize = squareSize;
+			while(cellSize*2 <= ADAPTIVE_CELL_SIZE)
+				cellSize *= 2;
+			for(int i = alignToGrid(originX, leftLim, cellSize); i <= rightLim; i += cellSize) {
+				for(int j = alignToGrid(originY, upperLim, cellSize); j < lowerLim; j += cellSize) {
+					if(abortPaint)
+						return;
+					refine(i, j, cellSize);
+				}
+			}
+		}
+		
+		/**
+		 * renders one square of adaptive refinement
+		 * @param x first column of the square
+		 * @param y first row of the square
+		 * @param size edge length, squareSize times a power of two
+		 */
+		private void refine(int x, int y, int size) {
+			//only the squares of squareSize that start inside of the limits belong to this part
+			if(x > rightLim || y >= lowerLim || x + size <= leftLim || y + size <= upperLim || abortPaint)
+				return;
+			double upperLeft = sample(x, y, field);
+			if(size > squareSize) {
+				double upperRight = sample(x + size, y, field);
+				double lowerLeft = sample(x, y + size, field);
+				double lowerRight = sample(x + size, y + size, field);
+				if(!isUniform(upperLeft, upperRight, lowerLeft, lowerRight)) {
+					int half = size/2;
+					refine(x, y, half);
+					refine(x + half, y, half);
+					refine(x, y + half, half);
+					refine(x + half, y + half, half);
+					return;
+				}
+			}
+			int rgb = getRGB(upperLeft);
+			//ends of the last squares of squareSize that belong to this part
+			int partRight = leftLim + ((rightLim - leftLim)/squareSize + 1)*squareSize;
+			int partBottom = upperLim + ((lowerLim - upperLim + squareSize - 1)/squareSize)*squareSize;
+			int x0 = Math.max(Math.max(x, leftLim), raster.x);
+			int x1 = Math.min(Math.min(x + size, partRight), raster.x + raster.width);
+			int y1 = Math.min(Math.min(y + size, partBottom), raster.y + raster.height);
+			for(int row = Math.max(Math.max(y, upperLim), raster.y); row < y1 && x0 < x1; row++) {
+				int offset = (row - raster.y)*raster.width - raster.x;
+				Arrays.fill(pixels, offset + x0, offset + x1, rgb);
+			}
+		}
 
 	}
 
@@ -691,6 +1275,98 @@ public class ReliefDrawer implements Drawable {
 
 	public void setPixelSkip(int pixelSkip) {
 		this.pixelSkip = pixelSkip;
+		this.squareSize = pixelSkip << detailLevel;
+	}
+	
+	/**
+	 * @return pixel skip the progressive rendering of an AdvancedPlotSheet refines the relief down to
+	 */
+	public int getProgressivePixelSkip() {
+		return progressivePixelSkip;
+	}
+	
+	/**
+	 * sets the pixel skip the progressive rendering of an AdvancedPlotSheet refines the relief down to, the final
+	 * image is painted with the smaller one of this and the pixelSkip. By default the relief is refined down to
+	 * single pixels, set it to the pixelSkip to end with the resolution a PlotSheet paints.
+	 * @param progressivePixelSkip pixel skip of the finest level of progressive rendering
+	 */
+	public void setProgressivePixelSkip(int progressivePixelSkip) {
+		if(progressivePixelSkip < 1){
+			System.err.println("ReliefDrawer:Error::Wrong progressive pixel skip (smaller than 1)");
+			System.exit(-1);
+		}
+		this.progressivePixelSkip = progressivePixelSkip;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.ProgressiveDrawable#setDetailLevel(int)
+	 */
+	@Override
+	public void setDetailLevel(int level) {
+		if(level < 0){
+			System.err.println("ReliefDrawer:Error::Wrong detail level (smaller than 0)");
+			System.exit(-1);
+		}
+		this.detailLevel = level;
+		this.squareSize = pixelSkip << level;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.ProgressiveDrawable#getCoarsestDetailLevel()
+	 */
+	@Override
+	public int getCoarsestDetailLevel() {
+		//the borders of an uncolored relief are traced on every pixel, coarser squares would not make them faster
+		if(!this.colored)
+			return 0;
+		int level = 0;
+		while(level < 3 && pixelSkip << (level + 1) <= PREVIEW_SQUARE_SIZE)
+			level++;
+		return level;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.ProgressiveDrawable#getNextDetailLevel(int)
+	 */
+	@Override
+	public int getNextDetailLevel(int level) {
+		//with adaptive refinement only the squares that need it are evaluated, so the full detail follows directly,
+		//otherwise the squares of a level are halved, so only the new corners are evaluated on the next level
+		return (isAdaptiveRefinement())? 0 : level - 1;
+	}
+	
+	/**
+	 * activate adaptive refinement for colored reliefs, the relief is split into squares that are only divided further
+	 * where their corners lie in different height regions or differ more than the threshold, down to squares of
+	 * pixelSkip size. All other squares are filled with one color, so smooth reliefs need only a small part of 
+	 * the evaluations. Details inside of a square that do not reach its corners may be missed.
+	 * @param gradientThreshold largest difference between the corners of a square that is filled with one color,
+	 * relative to the range of function values in the plot (between 0 and 1)
+	 */
+	public void setAdaptiveRefinement(double gradientThreshold) {
+		if(gradientThreshold <= 0){
+			System.err.println("ReliefDrawer:Error::Wrong gradient threshold (not greater than 0)");
+			System.exit(-1);
+		}
+		this.adaptiveThreshold = gradientThreshold;
+	}
+	
+	/**
+	 * deactivate adaptive refinement, every square of pixelSkip size is evaluated (standard behavior)
+	 */
+	public void unsetAdaptiveRefinement() {
+		this.adaptiveThreshold = 0;
+	}
+	
+	/**
+	 * @return true if adaptive refinement is used
+	 */
+	public boolean isAdaptiveRefinement() {
+		return this.adaptiveThreshold > 0;
 	}
 	
 	
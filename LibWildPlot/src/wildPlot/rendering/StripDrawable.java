@@ -0,0 +1,37 @@
+/**
+ *
+ */
+package wildPlot.rendering;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+
+/**
+ * Drawables that implement the StripDrawable interface are able to paint only a part (a strip) of their image.
+ * The PlotSheet uses this when the plot is panned: the image of the last paint is shifted and only the newly exposed
+ * strips are painted anew. In tiled rendering the plot is split into tiles that are painted in parallel as strips.
+ *
+ * @see wildPlot.rendering.Drawable
+ * @see wildPlot.rendering.PlotSheet#pan(int, int, Rectangle)
+ */
+public interface StripDrawable extends Drawable {
+	
+	/**
+	 * Called once for every paint before any strip is painted. Afterwards the strips may be painted concurrently
+	 * from several threads, so everything that has to be done only once for the whole plot is done here.
+	 * @param field bounds of the whole plot
+	 * @param isShifted true if the strips complete the shifted image of the last paint, 
+	 * false if the strips together cover the whole plot
+	 */
+	public void prepareStrips(Rectangle field, boolean isShifted);
+
+	/**
+	 * Paint only the part of the drawable object that lies inside of the given strip.
+	 * The clip of the graphic object is already set to the strip, so getClipBounds() of the graphic object
+	 * must not be used for coordinate conversions, use field for this instead.
+	 * @param g graphic object used for drawing
+	 * @param field bounds of the whole plot, used for conversions between plot and graphic coordinates
+	 * @param strip the part of field that has to be painted
+	 */
+	public void paintStrip(Graphics g, Rectangle field, Rectangle strip);
+}
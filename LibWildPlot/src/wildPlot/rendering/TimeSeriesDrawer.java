@@ -0,0 +1,192 @@
+/**
+ *
+ */
+package wildPlot.rendering;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+
+import wildPlot.tools.TimeSeriesBuffer;
+
+/**
+ * This class draws a time series that is appended to while it is drawn, e.g. by the thread of a sensor. Only the
+ * points in the visible x-range are read if their x-values never decrease. The points of every pixel column are
+ * reduced to their lowest, highest, first and last y-value, so the drawing time depends on the width of the plot
+ * and not on the number of points, while every peak stays visible.
+ *
+ * @see wildPlot.tools.TimeSeriesBuffer
+ */
+public class TimeSeriesDrawer implements StripDrawable {
+
+	private PlotSheet plotSheet;
+
+	private TimeSeriesBuffer buffer;
+
+	private Color color;
+
+	/**
+	 * points are copied from the buffer in blocks of this size
+	 */
+	private static final int READ_BLOCK_SIZE = 4096;
+
+	/**
+	 * Constructor for a time series
+	 * @param plotSheet the sheet the time series will be drawn onto
+	 * @param buffer buffer with the points of the time series
+	 * @param color line color
+	 */
+	public TimeSeriesDrawer(PlotSheet plotSheet, TimeSeriesBuffer buffer, Color color) {
+		this.plotSheet = plotSheet;
+		this.buffer = buffer;
+		this.color = color;
+	}
+
+	/* (non-Javadoc)
+	 * @see rendering.Drawable#paint(java.awt.Graphics)
+	 */
+	@Override
+	public void paint(Graphics g) {
+		Rectangle field = g.getClipBounds();
+		paintColumns(g, field, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.StripDrawable#prepareStrips(java.awt.Rectangle, boolean)
+	 */
+	@Override
+	public void prepareStrips(Rectangle field, boolean isShifted) {
+		//every column is reduced on its own, nothing to prepare
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.StripDrawable#paintStrip(java.awt.Graphics, java.awt.Rectangle, java.awt.Rectangle)
+	 */
+	@Override
+	public void paintStrip(Graphics g, Rectangle field, Rectangle strip) {
+		paintColumns(g, field, strip);
+	}
+
+	/**
+	 * draws the time series column by column, in every column a vertical line connects the lowest and the highest
+	 * point and the last point of a column is connected with the first point of the next one
+	 * @param g graphic object used for drawing
+	 * @param field bounds of the plot
+	 * @param strip if not null only the columns of this part of field are drawn
+	 */
+	private void paintColumns(Graphics g, Rectangle field, Rectangle strip) {
+		int left = field.x + plotSheet.getFrameThickness();
+		int right = field.x + field.width - plotSheet.getFrameThickness();
+		if(strip != null) {
+			left = Math.max(left, strip.x);
+			right = Math.min(right, strip.x + strip.width);
+		}
+		if(left >= right)
+			return;
+
+		//lowest, highest, first and last y-value of every column
+		int width = right - left;
+		double[] minY = new double[width];
+		double[] maxY = new double[width];
+		double[] firstY = new double[width];
+		double[] lastY = new double[width];
+		boolean[] hasPoints = new boolean[width];
+
+		//the nearest points outside of the columns, the lines to them lead out of the drawn part
+		boolean hasBefore = false;
+		int beforeX = 0;
+		double beforeY = 0;
+		boolean hasAfter = false;
+		int afterX = 0;
+		double afterY = 0;
+
+		long end = buffer.getEnd();
+		long start = buffer.getStart(end);
+		if(buffer.isSorted()) {
+			//a pixel of tolerance for rounding and one more point on both sides for the lines leading out
+			double leftX = plotSheet.toCoordinatePoint(left - 1, 0, field)[0];
+			double rightX = plotSheet.toCoordinatePoint(right + 1, 0, field)[0];
+			long first = buffer.search(leftX, start, end);
+			long last = buffer.search(rightX, first, end);
+			start = Math.max(start, first - 1);
+			end = Math.min(end, last + 1);
+		}
+
+		double anyY = plotSheet.getyRange()[0];
+		double[] x = new double[READ_BLOCK_SIZE];
+		double[] y = new double[READ_BLOCK_SIZE];
+		for(long row = start; row < end; row += READ_BLOCK_SIZE) {
+			int count = (int)Math.min(READ_BLOCK_SIZE, end - row);
+			//points that were overwritten while they were copied are left out
+			long valid = buffer.read(row, count, x, y);
+			for(int i = (int)Math.min(count, valid - row); i < count; i++) {
+				if(Double.isNaN(x[i]) || Double.isNaN(y[i]))
+					continue;
+				int pixelX = plotSheet.toGraphicPoint(x[i], anyY, field)[0];
+				if(pixelX < left) {
+					if(!hasBefore || pixelX >= beforeX) {
+						hasBefore = true;
+						beforeX = pixelX;
+						beforeY = y[i];
+					}
+				} else if(pixelX >= right) {
+					if(!hasAfter || pixelX < afterX) {
+						hasAfter = true;
+						afterX = pixelX;
+						afterY = y[i];
+					}
+				} else {
+					int column = pixelX - left;
+					if(!hasPoints[column]) {
+						hasPoints[column] = true;
+						minY[column] = y[i];
+						maxY[column] = y[i];
+						firstY[column] = y[i];
+					} else if(y[i] < minY[column]) {
+						minY[column] = y[i];
+					} else if(y[i] > maxY[column]) {
+						maxY[column] = y[i];
+					}
+					lastY[column] = y[i];
+				}
+			}
+		}
+
+		Color oldColor = g.getColor();
+		g.setColor(color);
+		double anyX = plotSheet.getxRange()[0];
+		boolean hasPrevious = hasBefore;
+		int previousX = beforeX;
+		int previousY = (hasBefore)? plotSheet.toGraphicPoint(anyX, beforeY, field)[1] : 0;
+		for(int column = 0; column < width; column++) {
+			if(!hasPoints[column])
+				continue;
+			int pixelX = left + column;
+			int firstPixelY = plotSheet.toGraphicPoint(anyX, firstY[column], field)[1];
+			if(hasPrevious)
+				g.drawLine(previousX, previousY, pixelX, firstPixelY);
+			g.drawLine(pixelX, plotSheet.toGraphicPoint(anyX, minY[column], field)[1], pixelX, plotSheet.toGraphicPoint(anyX, maxY[column], field)[1]);
+			hasPrevious = true;
+			previousX = pixelX;
+			previousY = plotSheet.toGraphicPoint(anyX, lastY[column], field)[1];
+		}
+		if(hasPrevious && hasAfter)
+			g.drawLine(previousX, previousY, afterX, plotSheet.toGraphicPoint(anyX, afterY, field)[1]);
+		g.setColor(oldColor);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see rendering.Drawable#isOnFrame()
+	 */
+	public boolean isOnFrame() {
+		return false;
+	}
+
+	@Override
+	public void abortAndReset() {
+
+	}
+}
@@ -7,12 +7,15 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Rectangle;
 
+import wildPlot.rendering.interfaces.ColumnTable;
+import wildPlot.tools.ArrayColumnTable;
+
 /**
  * Histogram plot, detailed informations regarding histograms are available in the internets
  * 
  *
  */
-public class XAxisHistoGram implements Drawable {
+public class XAxisHistoGram implements ProgressiveDrawable {
 	
 	private double binSize = 1;
 	
@@ -28,7 +31,7 @@ public class XAxisHistoGram implements Drawable {
 	
 	private PlotSheet plotSheet;
 	
-	private double[][] points;
+	private ColumnTable points;
 	
 	private double start = 0;
 	
@@ -39,6 +42,21 @@ public class XAxisHistoGram implements Drawable {
 	private Color fillColor;
 	
 	private boolean filling = false;
+	
+	/**
+	 * level of detail in progressive rendering, 2^detailLevel neighboring bars are merged into one coarse bar
+	 */
+	private int detailLevel = 0;
+	
+	/**
+	 * coarsest level of detail, at most 8 bars are merged
+	 */
+	private static final int MAX_DETAIL_LEVEL = 3;
+	
+	/**
+	 * a coarse preview keeps at least this many bars in the plot
+	 */
+	private static final int MIN_PREVIEW_BARS = 16;
 
 	/**
 	 * @param plotSheet
@@ -48,6 +66,17 @@ public class XAxisHistoGram implements Drawable {
 	 * @param color border color of bars, for filling color use setFilling() and setFillingColor()
 	 */
 	public XAxisHistoGram(PlotSheet plotSheet, double[][] points, double start, double size, Color color) {
+		this(plotSheet, new ArrayColumnTable(points), start, size, color);
+	}
+	
+	/**
+	 * @param plotSheet
+	 * @param points the points used for calculating histogram data
+	 * @param start relative start position of histogram bars the other bars will be aligned to
+	 * @param size size of bars from left to right
+	 * @param color border color of bars, for filling color use setFilling() and setFillingColor()
+	 */
+	public XAxisHistoGram(PlotSheet plotSheet, ColumnTable points, double start, double size, Color color) {
 		super();
 		this.plotSheet = plotSheet;
 		this.points = points;
@@ -101,15 +130,17 @@ public class XAxisHistoGram implements Drawable {
 			yOffset = plotSheet.getyRange()[0];
 		
 		
-		double steps = this.size;
+		//coarse bars start at borders of the normal bars, their height is the mean of the bars they merge
+		int mergedBars = 1 << detailLevel;
+		double steps = this.size*mergedBars;
 		
 		double tmp =  (int)((0-plotSheet.getxRange()[0])/steps);
 		tmp = (start - tmp*steps); 
 		
 		while(tmp <= plotSheet.getxRange()[1]) {
-			double sizeInRange = getSizeInRange(tmp, tmp+size);
+			double sizeInRange = getSizeInRange(tmp, tmp+steps)/mergedBars;
 			if(sizeInRange != 0)
-				drawBar(tmp, sizeInRange*scaleFactor*extraScaleFactor, g, field);
+				drawBar(tmp, sizeInRange*scaleFactor*extraScaleFactor, g, field, steps);
 			tmp += steps;
 			//System.err.println("xaxisHisto"+tmp + ": " + sizeInRange);
 		}
@@ -206,14 +237,14 @@ public class XAxisHistoGram implements Drawable {
 		//System.err.println("XHisto: " + leftBorder + " : "+ rightBorder);
 		int cnt = 0;
 		double size = 0;
-		for(int i = 0; i<this.points[0].length; i++) {
+		for(int i = 0; i<this.points.getRowCount(); i++) {
 			
-			if(points[0][i] >= leftBorder && points[0][i] < rightBorder) {
+			if(points.get(0, i) >= leftBorder && points.get(0, i) < rightBorder) {
 				cnt++;
 				//System.err.println("XHist cnt++");
 			}
 		}
-		return (double)cnt/((double)points[0].length * this.size);
+		return (double)cnt/((double)points.getRowCount() * this.size);
 	}
 	
 	/**
@@ -262,4 +293,39 @@ public class XAxisHistoGram implements Drawable {
 		
 	}
 	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.ProgressiveDrawable#setDetailLevel(int)
+	 */
+	@Override
+	public void setDetailLevel(int level) {
+		if(level < 0){
+			System.err.println("XAxisHistoGram:Error::Wrong detail level (smaller than 0)");
+			System.exit(-1);
+		}
+		this.detailLevel = Math.min(level, MAX_DETAIL_LEVEL);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.ProgressiveDrawable#getCoarsestDetailLevel()
+	 */
+	@Override
+	public int getCoarsestDetailLevel() {
+		double bars = (plotSheet.getxRange()[1] - plotSheet.getxRange()[0])/this.size;
+		int level = 0;
+		while(level < MAX_DETAIL_LEVEL && bars/(1 << (level + 1)) >= MIN_PREVIEW_BARS)
+			level++;
+		return level;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.ProgressiveDrawable#getNextDetailLevel(int)
+	 */
+	@Override
+	public int getNextDetailLevel(int level) {
+		return level - 1;
+	}
+	
 }
@@ -7,6 +7,9 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Rectangle;
 
+import wildPlot.rendering.interfaces.ColumnTable;
+import wildPlot.tools.ArrayColumnTable;
+
 /**
  * Histogram plot, detailed informations regarding histograms are available in the internets
  * 
@@ -26,7 +29,7 @@ public class YAxisBarGraph implements Drawable {
 	
 	private PlotSheet plotSheet;
 	
-	private double[][] points;
+	private ColumnTable points;
 	
 	private double start = 0;
 	
@@ -46,6 +49,17 @@ public class YAxisBarGraph implements Drawable {
 	 * @param color border color of bars, for filling color use setFilling() and setFillingColor()
 	 */
 	public YAxisBarGraph(PlotSheet plotSheet, double[][] points, double start, double size, Color color) {
+		this(plotSheet, new ArrayColumnTable(points), start, size, color);
+	}
+	
+	/**
+	 * @param plotSheet
+	 * @param points the points used for calculating histogram data
+	 * @param start relative start position of histogram bars the other bars will be aligned to
+	 * @param size size of bars from left to right
+	 * @param color border color of bars, for filling color use setFilling() and setFillingColor()
+	 */
+	public YAxisBarGraph(PlotSheet plotSheet, ColumnTable points, double start, double size, Color color) {
 		super();
 		this.plotSheet = plotSheet;
 		this.points = points;
@@ -104,11 +118,11 @@ public class YAxisBarGraph implements Drawable {
 		tmp = (start - tmp*steps); 
 		
 		
-		for(int i = 0; i<this.points[0].length; i++) {
-			if(points.length == 3) {
-				drawBar(points[0][i], points[1][i]*scaleFactor*extraScaleFactor, g, field, points[2][i]);
+		for(int i = 0; i<this.points.getRowCount(); i++) {
+			if(points.getColumnCount() == 3) {
+				drawBar(points.get(0, i), points.get(1, i)*scaleFactor*extraScaleFactor, g, field, points.get(2, i));
 			} else {
-				drawBar(points[0][i], points[1][i]*scaleFactor*extraScaleFactor, g, field);
+				drawBar(points.get(0, i), points.get(1, i)*scaleFactor*extraScaleFactor, g, field);
 			}
 		}
 		g.setColor(oldColor);
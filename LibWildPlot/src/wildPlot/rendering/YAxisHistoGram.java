@@ -7,12 +7,15 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Rectangle;
 
+import wildPlot.rendering.interfaces.ColumnTable;
+import wildPlot.tools.ArrayColumnTable;
+
 /**
  * Histogram plot, detailed informations regarding histograms are available in the internets
  * 
  *
  */
-public class YAxisHistoGram implements Drawable {
+public class YAxisHistoGram implements ProgressiveDrawable {
 	
 	private double extraScaleFactor = 1;
 	
@@ -26,7 +29,7 @@ public class YAxisHistoGram implements Drawable {
 	
 	private PlotSheet plotSheet;
 	
-	private double[][] points;
+	private ColumnTable points;
 	
 	private double start = 0;
 	private double binSize = 1;
@@ -37,6 +40,21 @@ public class YAxisHistoGram implements Drawable {
 	private Color fillColor;
 	
 	private boolean filling = false;
+	
+	/**
+	 * level of detail in progressive rendering, 2^detailLevel neighboring bars are merged into one coarse bar
+	 */
+	private int detailLevel = 0;
+	
+	/**
+	 * coarsest level of detail, at most 8 bars are merged
+	 */
+	private static final int MAX_DETAIL_LEVEL = 3;
+	
+	/**
+	 * a coarse preview keeps at least this many bars in the plot
+	 */
+	private static final int MIN_PREVIEW_BARS = 16;
 
 	/**
 	 * @param plotSheet
@@ -46,6 +64,17 @@ public class YAxisHistoGram implements Drawable {
 	 * @param color border color of bars, for filling color use setFilling() and setFillingColor()
 	 */
 	public YAxisHistoGram(PlotSheet plotSheet, double[][] points, double start, double size, Color color) {
+		this(plotSheet, new ArrayColumnTable(points), start, size, color);
+	}
+	
+	/**
+	 * @param plotSheet
+	 * @param points the points used for calculating histogram data
+	 * @param start relative start position of histogram bars the other bars will be aligned to
+	 * @param size size of bars from left to right
+	 * @param color border color of bars, for filling color use setFilling() and setFillingColor()
+	 */
+	public YAxisHistoGram(PlotSheet plotSheet, ColumnTable points, double start, double size, Color color) {
 		super();
 		this.plotSheet = plotSheet;
 		this.points = points;
@@ -99,15 +128,17 @@ public class YAxisHistoGram implements Drawable {
 			xOffset = plotSheet.getxRange()[0];
 		
 		
-		double steps = this.size;
+		//coarse bars start at borders of the normal bars, their height is the mean of the bars they merge
+		int mergedBars = 1 << detailLevel;
+		double steps = this.size*mergedBars;
 		
 		double tmp =  (int)((0-plotSheet.getyRange()[0])/steps);
 		tmp = (start - tmp*steps); 
 		
 		while(tmp <= plotSheet.getyRange()[1]) {
-			double sizeInRange = getSizeInRange(tmp, tmp+size);
+			double sizeInRange = getSizeInRange(tmp, tmp+steps)/mergedBars;
 			if(sizeInRange != 0)
-				drawBar(tmp, sizeInRange*scaleFactor*extraScaleFactor, g, field);
+				drawBar(tmp, sizeInRange*scaleFactor*extraScaleFactor, g, field, steps);
 			tmp += steps;
 			//System.err.println("xaxisHisto"+tmp + ": " + sizeInRange);
 		}
@@ -204,14 +235,14 @@ public class YAxisHistoGram implements Drawable {
 	private double getSizeInRange(double leftBorder, double rightBorder){
 		//System.err.println("XHisto: " + leftBorder + " : "+ rightBorder);
 		int cnt = 0;
-		for(int i = 0; i<this.points[1].length; i++) {
+		for(int i = 0; i<this.points.getRowCount(); i++) {
 			
-			if(points[1][i] >= leftBorder && points[1][i] < rightBorder) {
+			if(points.get(1, i) >= leftBorder && points.get(1, i) < rightBorder) {
 				cnt++;
 				//System.err.println("XHist cnt++");
 			}
 		}
-		return (double)cnt/((double)points[1].length*this.size);
+		return (double)cnt/((double)points.getRowCount()*this.size);
 	}
 	
 	/**
@@ -260,5 +291,40 @@ public class YAxisHistoGram implements Drawable {
 		
 	}
 	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.ProgressiveDrawable#setDetailLevel(int)
+	 */
+	@Override
+	public void setDetailLevel(int level) {
+		if(level < 0){
+			System.err.println("YAxisHistoGram:Error::Wrong detail level (smaller than 0)");
+			System.exit(-1);
+		}
+		this.detailLevel = Math.min(level, MAX_DETAIL_LEVEL);
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.ProgressiveDrawable#getCoarsestDetailLevel()
+	 */
+	@Override
+	public int getCoarsestDetailLevel() {
+		double bars = (plotSheet.getyRange()[1] - plotSheet.getyRange()[0])/this.size;
+		int level = 0;
+		while(level < MAX_DETAIL_LEVEL && bars/(1 << (level + 1)) >= MIN_PREVIEW_BARS)
+			level++;
+		return level;
+	}
+	
+	/*
+	 * (non-Javadoc)
+	 * @see wildPlot.rendering.ProgressiveDrawable#getNextDetailLevel(int)
+	 */
+	@Override
+	public int getNextDetailLevel(int level) {
+		return level - 1;
+	}
+	
 	
 }
@@ -0,0 +1,27 @@
+package wildPlot.rendering.interfaces;
+
+/**
+ * Interface for tables of numbers stored column by column, the point, line, bar and histogram drawers read their data
+ * through it, so the values do not have to be held in arrays on the heap
+ */
+public interface ColumnTable {
+
+	/**
+	 * @return number of columns
+	 */
+	public int getColumnCount();
+
+	/**
+	 * @return number of rows, every column has this many values
+	 */
+	public int getRowCount();
+
+	/**
+	 *
+	 * @param column index of the column
+	 * @param row index of the row
+	 * @return value in the given column and row
+	 */
+	public double get(int column, int row);
+
+}
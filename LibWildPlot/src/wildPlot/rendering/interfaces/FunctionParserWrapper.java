@@ -3,6 +3,7 @@ package wildPlot.rendering.interfaces;
 import java.util.HashMap;
 
 
+import wildPlot.parsing.CompiledFunction;
 import wildPlot.parsing.FunctionParser;
 import wildPlot.rendering.interfaces.Function2D;
 import wildPlot.rendering.interfaces.Function3D;
@@ -14,6 +15,12 @@ public class FunctionParserWrapper implements Function3D, Function2D{
 	private FunctionParser funcParse = null;
 	private String funcName = null;
 	
+	/**
+	 * compiled function and the parser version it belongs to, requested again when the parser version changes
+	 */
+	private volatile CompiledFunction compiled = null;
+	private volatile int compiledVersion = -1;
+	
 	boolean buffered = false;
 	public FunctionParserWrapper(FunctionParser funcParse, String funcName, boolean buffered) {
 		super();
@@ -32,8 +39,14 @@ public class FunctionParserWrapper implements Function3D, Function2D{
 
 	public double f2(double x, double y) {
 		double[] doubArr = {x,y};
+		CompiledFunction compiled = getCompiledFunction();
+		if(compiled != null)
+			return compiled.f(doubArr);
 		double out=0;
-		out = funcParse.getFunctionOutput(funcName, doubArr);
+		//the parser is not thread safe, but drawables may be painted in parallel tiles
+		synchronized (funcParse) {
+			out = funcParse.getFunctionOutput(funcName, doubArr);
+		}
 
 		
 		return out;
@@ -44,7 +57,7 @@ public class FunctionParserWrapper implements Function3D, Function2D{
 		
 	}
 
-	public double bufferedF(double x, double y){
+	public synchronized double bufferedF(double x, double y){
 		HashMap<Long,Double> firstMap = map.get(Double.doubleToLongBits(x));
 		if(firstMap!= null) {
 			Double doub = firstMap.get(Double.doubleToLongBits(y));
@@ -64,13 +77,31 @@ public class FunctionParserWrapper implements Function3D, Function2D{
 		}
 	}
 	
+	/**
+	 * compiled functions can be evaluated without locking the parser
+	 * @return the compiled function for the current parser version or null if it can not be compiled
+	 */
+	private CompiledFunction getCompiledFunction() {
+		int version = funcParse.getVersion();
+		if(version != this.compiledVersion) {
+			this.compiled = funcParse.getCompiledFunction(funcName);
+			this.compiledVersion = version;
+		}
+		return this.compiled;
+	}
+	
 	public String getFuncName() {
 		return funcName;
 	}
 
 	@Override
 	public double f(double x) {
-		return funcParse.getFunctionOutput(funcName, x);
+		CompiledFunction compiled = getCompiledFunction();
+		if(compiled != null)
+			return compiled.f(x);
+		synchronized (funcParse) {
+			return funcParse.getFunctionOutput(funcName, x);
+		}
 	}
 
 }
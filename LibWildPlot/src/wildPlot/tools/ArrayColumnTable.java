@@ -0,0 +1,47 @@
+/**
+ *
+ */
+package wildPlot.tools;
+
+import wildPlot.rendering.interfaces.ColumnTable;
+
+/**
+ * This class provides columns that are held in arrays on the heap as ColumnTable
+ *
+ * @see wildPlot.rendering.interfaces.ColumnTable
+ */
+public class ArrayColumnTable implements ColumnTable {
+
+	private double[][] columns;
+
+	/**
+	 * Constructor of ArrayColumnTable
+	 * @param columns the columns of the table, all of the same length, they are used directly and not copied
+	 */
+	public ArrayColumnTable(double[][] columns) {
+		super();
+		this.columns = columns;
+	}
+
+	@Override
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	@Override
+	public int getRowCount() {
+		return (columns.length == 0)? 0 : columns[0].length;
+	}
+
+	@Override
+	public double get(int column, int row) {
+		return columns[column][row];
+	}
+
+	/**
+	 * @return the columns of the table
+	 */
+	public double[][] getColumns() {
+		return columns;
+	}
+}
@@ -0,0 +1,218 @@
+/**
+ *
+ */
+package wildPlot.tools;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import wildPlot.gui.PlotControl;
+import wildPlot.parsing.ProgramParser;
+import wildPlot.rendering.PlotSheet;
+
+/**
+ * This class renders plot scripts to PNG images without any window. A plot script contains commands of the
+ * ProgramParser, one per line, just as they would be entered on the prompt.
+ * All scripts are rendered in one process on a bounded pool of threads, so compiled functions, fonts and image buffers
+ * are shared between the scripts instead of being set up for every single plot.
+ *
+ * Usage: BatchRenderer [-threads n] [-size widthxheight] [-dpi dpi] input outputDirectory
+ * where input is a directory with plot scripts or "-" to read the paths of plot scripts from standard input
+ * @see wildPlot.parsing.ProgramParser
+ */
+public class BatchRenderer {
+
+	private int width = 1024;
+	private int height = 1024;
+	private double dpi = PlotSheet.DEFAULT_DPI;
+
+	private ExecutorService pool;
+
+	/**
+	 * image of the last plot rendered by the thread, reused for the next plot of the same size
+	 */
+	private ThreadLocal<BufferedImage> imageBuffer = new ThreadLocal<BufferedImage>();
+
+	static {
+		//images are written to files directly, a cache file for every image would only slow things down
+		ImageIO.setUseCache(false);
+	}
+
+	/**
+	 * Constructor of BatchRenderer
+	 * @param threadCount number of scripts that are rendered at the same time
+	 * @param width width of the images in pixel
+	 * @param height height of the images in pixel
+	 * @param dpi resolution of the images
+	 */
+	public BatchRenderer(int threadCount, int width, int height, double dpi) {
+		super();
+		this.width = width;
+		this.height = height;
+		this.dpi = dpi;
+		this.pool = Executors.newFixedThreadPool(threadCount);
+	}
+
+	/**
+	 * Constructor of BatchRenderer with one thread for each processor and images with the size of the plot window
+	 */
+	public BatchRenderer() {
+		this(Runtime.getRuntime().availableProcessors(), 1024, 1024, PlotSheet.DEFAULT_DPI);
+	}
+
+	/**
+	 * renders a plot script into an image, this may be used without a BatchRenderer object
+	 * @param script reader for the script
+	 * @param image the image the plot is rendered into, the whole image is overwritten
+	 * @param dpi resolution of the image
+	 * @throws IOException
+	 * @throws IllegalArgumentException if the resolution or a value the script sets is wrong, the job fails
+	 * instead of the process
+	 */
+	public static void renderScript(BufferedReader script, BufferedImage image, double dpi) throws IOException {
+		ProgramParser programParser = new ProgramParser(true);
+		programParser.parseScript(script);
+		PlotControl plotControl = programParser.plotCtrl();
+		plotControl.render(image, dpi);
+	}
+
+	/**
+	 * queue a plot script for rendering, the script is rendered as soon as a thread of this renderer is free
+	 * @param script file that contains the plot script
+	 * @param output PNG file the plot is written to
+	 * @return the future of the rendering, it returns the output file when the image is written
+	 */
+	public Future<File> submit(final File script, final File output) {
+		return pool.submit(new Callable<File>() {
+			@Override
+			public File call() throws Exception {
+				BufferedImage image = imageBuffer.get();
+				if(image == null || image.getWidth() != width || image.getHeight() != height) {
+					image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+					imageBuffer.set(image);
+				}
+				BufferedReader reader = new BufferedReader(new FileReader(script));
+				try {
+					renderScript(reader, image, dpi);
+				} finally {
+					reader.close();
+				}
+				if(!ImageIO.write(image, "png", output))
+					throw new IOException("no PNG writer available");
+				return output;
+			}
+		});
+	}
+
+	/**
+	 * finish all queued scripts and stop the threads of this renderer
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * name of the PNG file for a script, the extension of the script is replaced
+	 * @param script file that contains the plot script
+	 * @param outputDirectory directory for the PNG files
+	 * @return PNG file
+	 */
+	private static File outputFile(File script, File outputDirectory) {
+		String name = script.getName();
+		int extension = name.lastIndexOf('.');
+		if(extension > 0)
+			name = name.substring(0, extension);
+		return new File(outputDirectory, name + ".png");
+	}
+
+	public static void main(String[] args) throws IOException {
+		int threadCount = Runtime.getRuntime().availableProcessors();
+		int width = 1024;
+		int height = 1024;
+		double dpi = PlotSheet.DEFAULT_DPI;
+
+		int i = 0;
+		try {
+			for(; i < args.length - 2; i++) {
+				if(args[i].equals("-threads")) {
+					threadCount = Integer.parseInt(args[++i]);
+				} else if(args[i].equals("-size")) {
+					String[] size = args[++i].split("x");
+					width = Integer.parseInt(size[0]);
+					height = Integer.parseInt(size[1]);
+				} else if(args[i].equals("-dpi")) {
+					dpi = Double.parseDouble(args[++i]);
+				} else {
+					break;
+				}
+			}
+		} catch(RuntimeException e) {
+			i = -1;
+		}
+		if(i != args.length - 2 || threadCount < 1 || width < 1 || height < 1 || dpi <= 0) {
+			System.err.println("Usage: BatchRenderer [-threads n] [-size widthxheight] [-dpi dpi] input outputDirectory");
+			System.err.println("input is a directory with plot scripts or - to read paths of plot scripts from standard input");
+			System.exit(-1);
+		}
+
+		Vector<File> scripts = new Vector<File>();
+		if(args[i].equals("-")) {
+			BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+			String line;
+			while((line = in.readLine()) != null) {
+				if(line.trim().length() > 0)
+					scripts.add(new File(line.trim()));
+			}
+		} else {
+			File[] files = new File(args[i]).listFiles();
+			if(files == null) {
+				System.err.println("BatchRenderer:Error::" + args[i] + " is no directory");
+				System.exit(-1);
+			}
+			Arrays.sort(files);
+			for(File file : files) {
+				if(file.isFile())
+					scripts.add(file);
+			}
+		}
+		File outputDirectory = new File(args[i+1]);
+		outputDirectory.mkdirs();
+
+		long start = System.currentTimeMillis();
+		BatchRenderer batchRenderer = new BatchRenderer(threadCount, width, height, dpi);
+		Vector<Future<File>> results = new Vector<Future<File>>();
+		for(File script : scripts) {
+			results.add(batchRenderer.submit(script, outputFile(script, outputDirectory)));
+		}
+		batchRenderer.shutdown();
+
+		int failed = 0;
+		for(int j = 0; j < results.size(); j++) {
+			try {
+				results.get(j).get();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+				failed++;
+			} catch (ExecutionException e) {
+				System.err.println("BatchRenderer:Error::could not render " + scripts.get(j) + ": " + e.getCause());
+				failed++;
+			}
+		}
+		System.out.println("rendered " + (scripts.size() - failed) + " of " + scripts.size() + " plots in "
+				+ (System.currentTimeMillis() - start) + " ms");
+		System.exit((failed == 0)? 0 : 1);
+	}
+}
@@ -0,0 +1,361 @@
+/**
+ *
+ */
+package wildPlot.tools;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * This class reads a gzip compressed file and decompresses it on other threads than the one that reads from the
+ * stream, so decompression and parsing run at the same time. Files in the blocked gzip format (BGZF) consist of
+ * independent gzip members of at most 64KiB that carry their size in the header, these blocks are decompressed in
+ * parallel. All other gzip files are decompressed by one thread.
+ * The decompressed chunks are handed over in a queue of limited size, so the decompression never runs far ahead of
+ * the reader.
+ *
+ * @see wildPlot.tools.TableReader
+ */
+public class CompressedInputStream extends InputStream {
+
+	/**
+	 * size of the chunks a gzip file that is not blocked is decompressed in
+	 */
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	/**
+	 * number of decompressed chunks that wait for the reader at most
+	 */
+	private static final int QUEUE_SIZE = 32;
+
+	/**
+	 * largest uncompressed size of a BGZF block
+	 */
+	private static final int MAX_BLOCK_SIZE = 1 << 16;
+
+	/**
+	 * gzip header flags and the extra field of BGZF
+	 */
+	private static final int FLAG_EXTRA = 4;
+	private static final int BGZF_SUBFIELD_ID1 = 'B';
+	private static final int BGZF_SUBFIELD_ID2 = 'C';
+
+	/**
+	 * marks the end of the decompressed data in the queue
+	 */
+	private static final Future<byte[]> END = completed(new byte[0]);
+
+	private BlockingQueue<Future<byte[]>> chunks = new ArrayBlockingQueue<Future<byte[]>>(QUEUE_SIZE);
+	private Thread feeder;
+	private ExecutorService inflaters = null;
+
+	private byte[] chunk = new byte[0];
+	private int chunkPosition = 0;
+	private boolean isFinished = false;
+
+	/**
+	 * checks if a file is gzip compressed
+	 * @param fileName name of the file
+	 * @return true if the file starts with the gzip magic number
+	 * @throws IOException if the file can not be read
+	 */
+	public static boolean isCompressed(String fileName) throws IOException {
+		InputStream in = new FileInputStream(fileName);
+		try {
+			return in.read() == 0x1f && in.read() == 0x8b;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Constructor of CompressedInputStream, the decompression starts immediately
+	 * @param fileName gzip compressed file
+	 * @throws IOException if the file can not be opened
+	 */
+	public CompressedInputStream(String fileName) throws IOException {
+		super();
+		final InputStream in = new BufferedInputStream(new FileInputStream(fileName), CHUNK_SIZE);
+		final boolean isBlocked = isBlocked(in);
+		if(isBlocked) {
+			inflaters = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		feeder = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					if(isBlocked) {
+						feedBlocks(in);
+					} else {
+						feedStream(in);
+					}
+					chunks.put(END);
+				} catch (final IOException e) {
+					try {
+						chunks.put(failed(e));
+					} catch (InterruptedException e1) {
+						//the stream is closed
+					}
+				} catch (RuntimeException e) {
+					//the reader must not wait for chunks that are never queued
+					try {
+						chunks.put(failed(new IOException("CompressedInputStream: decompression failed (" + e + ")")));
+					} catch (InterruptedException e1) {
+						//the stream is closed
+					}
+				} catch (InterruptedException e) {
+					//the stream is closed
+				} finally {
+					try {
+						in.close();
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+		});
+		feeder.setDaemon(true);
+		feeder.start();
+	}
+
+	/**
+	 * checks the header of the first gzip member for the extra field of BGZF without consuming it
+	 */
+	private static boolean isBlocked(InputStream in) throws IOException {
+		in.mark(18);
+		byte[] header = new byte[18];
+		int length = 0;
+		int read;
+		while(length < header.length && (read = in.read(header, length, header.length - length)) >= 0)
+			length += read;
+		in.reset();
+		return length == header.length && (header[3] & FLAG_EXTRA) != 0 && (header[12] & 0xff) == BGZF_SUBFIELD_ID1 &&
+				(header[13] & 0xff) == BGZF_SUBFIELD_ID2 && header[14] == 2 && header[15] == 0;
+	}
+
+	/**
+	 * decompresses a gzip stream in chunks in the feeder thread
+	 */
+	private void feedStream(InputStream in) throws IOException, InterruptedException {
+		InputStream gzip = new GZIPInputStream(in, CHUNK_SIZE);
+		while(true) {
+			byte[] buffer = new byte[CHUNK_SIZE];
+			int length = 0;
+			int read = 0;
+			while(length < buffer.length && (read = gzip.read(buffer, length, buffer.length - length)) >= 0)
+				length += read;
+			if(length > 0)
+				chunks.put(completed((length == buffer.length)? buffer : Arrays.copyOf(buffer, length)));
+			if(read < 0)
+				return;
+		}
+	}
+
+	/**
+	 * splits a BGZF file into its blocks in the feeder thread, the blocks are decompressed in parallel and queued in
+	 * the order of the file
+	 */
+	private void feedBlocks(InputStream in) throws IOException, InterruptedException {
+		DataInputStream data = new DataInputStream(in);
+		byte[] header = new byte[12];
+		while(true) {
+			int first = data.read();
+			if(first < 0)
+				return;
+			header[0] = (byte)first;
+			data.readFully(header, 1, header.length - 1);
+			if((header[0] & 0xff) != 0x1f || (header[1] & 0xff) != 0x8b || header[2] != 8 || (header[3] & FLAG_EXTRA) == 0)
+				throw new IOException("CompressedInputStream: not a BGZF block");
+			int extraLength = (header[10] & 0xff) | ((header[11] & 0xff) << 8);
+			byte[] extra = new byte[extraLength];
+			data.readFully(extra);
+			int blockSize = -1;
+			for(int i = 0; i + 4 <= extraLength;) {
+				int subfieldLength = (extra[i+2] & 0xff) | ((extra[i+3] & 0xff) << 8);
+				if(i + 4 + subfieldLength > extraLength)
+					throw new IOException("CompressedInputStream: corrupt BGZF block");
+				if((extra[i] & 0xff) == BGZF_SUBFIELD_ID1 && (extra[i+1] & 0xff) == BGZF_SUBFIELD_ID2 && subfieldLength == 2)
+					blockSize = ((extra[i+4] & 0xff) | ((extra[i+5] & 0xff) << 8)) + 1;
+				i += 4 + subfieldLength;
+			}
+			if(blockSize < 0)
+				throw new IOException("CompressedInputStream: BGZF block without size");
+			if(blockSize < header.length + extraLength + 8)
+				throw new IOException("CompressedInputStream: corrupt BGZF block");
+			//compressed data, CRC32 and uncompressed size
+			final byte[] block = new byte[blockSize - header.length - extraLength];
+			data.readFully(block);
+			Future<byte[]> inflated;
+			try {
+				inflated = inflaters.submit(new Callable<byte[]>() {
+					@Override
+					public byte[] call() throws IOException {
+						return inflateBlock(block);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				//the stream is closed
+				return;
+			}
+			chunks.put(inflated);
+		}
+	}
+
+	/**
+	 * decompresses the data of one BGZF block and checks its size and CRC32
+	 * @param block compressed data followed by CRC32 and uncompressed size
+	 * @return decompressed data
+	 */
+	private static byte[] inflateBlock(byte[] block) throws IOException {
+		int trailer = block.length - 8;
+		if(trailer < 0)
+			throw new IOException("CompressedInputStream: truncated BGZF block");
+		long crc = readInt(block, trailer) & 0xffffffffL;
+		//a block never inflates to more than 64KiB, a larger size would only allocate memory for a corrupt block
+		int size = readInt(block, trailer + 4);
+		if(size < 0 || size > MAX_BLOCK_SIZE)
+			throw new IOException("CompressedInputStream: corrupt BGZF block");
+		byte[] result = new byte[size];
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(block, 0, trailer);
+			int length = 0;
+			while(length < result.length && !inflater.finished()) {
+				int inflated = inflater.inflate(result, length, result.length - length);
+				if(inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					break;
+				length += inflated;
+			}
+			if(length != result.length)
+				throw new IOException("CompressedInputStream: corrupt BGZF block");
+		} catch (DataFormatException e) {
+			throw new IOException("CompressedInputStream: corrupt BGZF block (" + e.getMessage() + ")");
+		} finally {
+			inflater.end();
+		}
+		CRC32 check = new CRC32();
+		check.update(result);
+		if(check.getValue() != crc)
+			throw new IOException("CompressedInputStream: CRC error in BGZF block");
+		return result;
+	}
+
+	private static int readInt(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xff) | ((bytes[offset+1] & 0xff) << 8) | ((bytes[offset+2] & 0xff) << 16) | ((bytes[offset+3] & 0xff) << 24);
+	}
+
+	private static Future<byte[]> completed(final byte[] chunk) {
+		FutureTask<byte[]> future = new FutureTask<byte[]>(new Callable<byte[]>() {
+			@Override
+			public byte[] call() {
+				return chunk;
+			}
+		});
+		future.run();
+		return future;
+	}
+
+	private static Future<byte[]> failed(final IOException e) {
+		FutureTask<byte[]> future = new FutureTask<byte[]>(new Callable<byte[]>() {
+			@Override
+			public byte[] call() throws IOException {
+				throw e;
+			}
+		});
+		future.run();
+		return future;
+	}
+
+	/**
+	 * takes the next decompressed chunk from the queue
+	 * @return false if there is no more data
+	 */
+	private boolean nextChunk() throws IOException {
+		if(isFinished)
+			return false;
+		try {
+			Future<byte[]> next = chunks.take();
+			if(next == END) {
+				isFinished = true;
+				return false;
+			}
+			chunk = next.get();
+			chunkPosition = 0;
+			return true;
+		} catch (InterruptedException e) {
+			throw new IOException("CompressedInputStream: interrupted while decompressing");
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof IOException)
+				throw (IOException)e.getCause();
+			throw new IOException("CompressedInputStream: decompression failed (" + e.getCause() + ")");
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.InputStream#read()
+	 */
+	@Override
+	public int read() throws IOException {
+		while(chunkPosition == chunk.length) {
+			if(!nextChunk())
+				return -1;
+		}
+		return chunk[chunkPosition++] & 0xff;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.InputStream#read(byte[], int, int)
+	 */
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+		if(length == 0)
+			return 0;
+		while(chunkPosition == chunk.length) {
+			if(!nextChunk())
+				return -1;
+		}
+		int count = Math.min(length, chunk.length - chunkPosition);
+		System.arraycopy(chunk, chunkPosition, buffer, offset, count);
+		chunkPosition += count;
+		return count;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.InputStream#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		isFinished = true;
+		feeder.interrupt();
+		if(inflaters != null)
+			inflaters.shutdownNow();
+	}
+}
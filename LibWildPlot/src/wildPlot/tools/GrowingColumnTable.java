@@ -0,0 +1,120 @@
+/**
+ *
+ */
+package wildPlot.tools;
+
+import java.util.Arrays;
+
+import wildPlot.rendering.interfaces.ColumnTable;
+
+/**
+ * This class holds a table that grows while it is drawn, one thread appends chunks of rows while others read it.
+ * Appended rows are visible to readers as soon as the row count includes them. The rows are stored in blocks of
+ * 2^16 rows, so appending never copies the rows that are already stored.
+ *
+ * @see wildPlot.tools.TableReader#openRowChunks(int)
+ */
+public class GrowingColumnTable implements ColumnTable {
+
+	/**
+	 * a block holds 2^BLOCK_SHIFT rows
+	 */
+	private static final int BLOCK_SHIFT = 16;
+	private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+
+	/**
+	 * values of every block by column, a new array is published whenever a block is added
+	 */
+	private volatile double[][][] blocks = new double[0][][];
+	private volatile int columnCount = 0;
+	private volatile int rowCount = 0;
+	private volatile boolean isComplete = false;
+
+	/**
+	 * lowest and highest value of every column, NaN values are left out
+	 */
+	private double[] minima = null;
+	private double[] maxima = null;
+
+	/**
+	 * appends a chunk of rows, the number of columns is set by the first chunk, this must only be called by one thread
+	 * @param chunk columns of the chunk, all of the same length
+	 */
+	public void append(double[][] chunk) {
+		if(minima == null) {
+			minima = new double[chunk.length];
+			maxima = new double[chunk.length];
+			Arrays.fill(minima, Double.POSITIVE_INFINITY);
+			Arrays.fill(maxima, Double.NEGATIVE_INFINITY);
+			columnCount = chunk.length;
+		}
+		if(chunk.length < columnCount){
+			System.err.println("GrowingColumnTable:Error::Chunk has " + chunk.length + " instead of " + columnCount + " columns");
+			System.exit(-1);
+		}
+		int chunkRows = (chunk.length == 0)? 0 : chunk[0].length;
+		int rows = rowCount;
+		double[][][] blocks = this.blocks;
+		for(int i = 0; i < chunkRows;) {
+			int block = (rows + i) >>> BLOCK_SHIFT;
+			if(block == blocks.length) {
+				blocks = Arrays.copyOf(blocks, block + 1);
+				blocks[block] = new double[columnCount][1 << BLOCK_SHIFT];
+				this.blocks = blocks;
+			}
+			int start = (rows + i) & BLOCK_MASK;
+			int count = Math.min(chunkRows - i, (1 << BLOCK_SHIFT) - start);
+			for(int k = 0; k < columnCount; k++) {
+				System.arraycopy(chunk[k], i, blocks[block][k], start, count);
+				for(int j = i; j < i + count; j++) {
+					if(chunk[k][j] < minima[k])
+						minima[k] = chunk[k][j];
+					if(chunk[k][j] > maxima[k])
+						maxima[k] = chunk[k][j];
+				}
+			}
+			i += count;
+		}
+		//the rows are written before they are counted, so readers never see rows that are not written yet
+		rowCount = rows + chunkRows;
+	}
+
+	/**
+	 * marks the table as complete, no rows are appended anymore
+	 */
+	public void finish() {
+		this.isComplete = true;
+	}
+
+	/**
+	 * @return true if all rows are appended
+	 */
+	public boolean isComplete() {
+		return isComplete;
+	}
+
+	/**
+	 * @param column index of the column
+	 * @return lowest and highest value of the appended rows of the column, NaN values are left out,
+	 * only available to the appending thread
+	 */
+	public double[] getRange(int column) {
+		double[] range = {minima[column], maxima[column]};
+		return range;
+	}
+
+	@Override
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	@Override
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	@Override
+	public double get(int column, int row) {
+		return blocks[row >>> BLOCK_SHIFT][column][row & BLOCK_MASK];
+	}
+}
@@ -0,0 +1,198 @@
+/**
+ *
+ */
+package wildPlot.tools;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Vector;
+
+/**
+ * This class calculates iso contour lines of a grid of function values with the marching squares algorithm.
+ * Every square between four neighboring grid points is classified by which of its corners lie above the contour level,
+ * the contour crosses the edges between corners above and below the level at linearly interpolated positions.
+ * The line segments of all squares are connected to polylines.
+ *
+ */
+public class MarchingSquares {
+
+	/**
+	 * line segments for every case of a square, the edges are numbered top=0, right=1, bottom=2, left=3
+	 * and the case is the sum of 1 for the upper left, 2 for the upper right, 4 for the lower right and 8 for the
+	 * lower left corner if that corner is above the level, the saddle cases 5 and 10 are resolved separately
+	 */
+	private static final int[][] SEGMENTS = {
+		{}, {3,0}, {0,1}, {3,1}, {1,2}, {3,0,1,2}, {0,2}, {3,2},
+		{2,3}, {2,0}, {0,1,2,3}, {2,1}, {1,3}, {1,0}, {0,3}, {}
+	};
+
+	private double[] values;
+	private int width;
+	private int height;
+
+	private MarchingSquares(double[] values, int width, int height) {
+		this.values = values;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * calculates the contour lines of one level
+	 * @param values grid values row by row
+	 * @param width number of grid points in a row
+	 * @param height number of rows
+	 * @param level value of the contour
+	 * @return polylines as arrays of alternating x and y grid coordinates, closed lines end with their first point,
+	 * squares with a NaN corner have no contour
+	 */
+	public static Vector<double[]> contour(double[] values, int width, int height, double level) {
+		return contours(values, width, height, new double[]{level}).get(0);
+	}
+
+	/**
+	 * calculates the contour lines of several levels, the grid is only traversed once and every square is only
+	 * classified for the levels between its lowest and highest corner
+	 * @param values grid values row by row
+	 * @param width number of grid points in a row
+	 * @param height number of rows
+	 * @param levels values of the contours in ascending order
+	 * @return polylines of every level as arrays of alternating x and y grid coordinates, closed lines end with their
+	 * first point, squares with a NaN corner have no contour
+	 */
+	public static Vector<Vector<double[]>> contours(double[] values, int width, int height, double[] levels) {
+		return new MarchingSquares(values, width, height).trace(levels);
+	}
+
+	/**
+	 * id of the crossing point on an edge of the square with the given upper left corner
+	 */
+	private int edgeId(int x, int y, int edge) {
+		switch(edge) {
+			case 0:	return 2*(y*width + x);
+			case 1:	return 2*(y*width + x + 1) + 1;
+			case 2:	return 2*((y+1)*width + x);
+			default:	return 2*(y*width + x) + 1;
+		}
+	}
+
+	/**
+	 * position of the crossing point with the given id in grid coordinates
+	 */
+	private void point(int id, double level, double[] line, int index) {
+		int corner = id/2;
+		int x = corner%width;
+		int y = corner/width;
+		//horizontal edges go to the right, vertical edges go down
+		int other = (id%2 == 0)? corner + 1 : corner + width;
+		double t = (level - values[corner])/(values[other] - values[corner]);
+		line[index] = (id%2 == 0)? x + t : x;
+		line[index+1] = (id%2 == 0)? y : y + t;
+	}
+
+	private Vector<Vector<double[]>> trace(double[] levels) {
+		//every crossing point is connected to at most two others
+		Vector<HashMap<Integer, int[]>> neighbors = new Vector<HashMap<Integer, int[]>>(levels.length);
+		for(int k = 0; k < levels.length; k++)
+			neighbors.add(new HashMap<Integer, int[]>());
+
+		for(int y = 0; y < height-1; y++) {
+			for(int x = 0; x < width-1; x++) {
+				double upperLeft = values[y*width + x];
+				double upperRight = values[y*width + x + 1];
+				double lowerRight = values[(y+1)*width + x + 1];
+				double lowerLeft = values[(y+1)*width + x];
+				if(upperLeft != upperLeft || upperRight != upperRight || lowerRight != lowerRight || lowerLeft != lowerLeft)
+					continue;
+				double lowest = Math.min(Math.min(upperLeft, upperRight), Math.min(lowerRight, lowerLeft));
+				double highest = Math.max(Math.max(upperLeft, upperRight), Math.max(lowerRight, lowerLeft));
+				//a contour crosses the square if its level is above the lowest and not above the highest corner
+				for(int k = firstLevelAbove(levels, lowest); k < levels.length && levels[k] <= highest; k++) {
+					double level = levels[k];
+					int square = ((upperLeft >= level)? 1 : 0) | ((upperRight >= level)? 2 : 0) | ((lowerRight >= level)? 4 : 0) | ((lowerLeft >= level)? 8 : 0);
+					int[] segments = SEGMENTS[square];
+					//saddle: both cases cut off the corners above the level, if the center is above the level too the
+					//corners below are cut off instead, as the other saddle case does
+					if(square == 5 || square == 10) {
+						boolean centerAbove = (upperLeft + upperRight + lowerRight + lowerLeft)/4 >= level;
+						if(centerAbove)
+							segments = SEGMENTS[15 - square];
+					}
+					for(int i = 0; i < segments.length; i += 2) {
+						int from = edgeId(x, y, segments[i]);
+						int to = edgeId(x, y, segments[i+1]);
+						link(neighbors.get(k), from, to);
+						link(neighbors.get(k), to, from);
+					}
+				}
+			}
+		}
+
+		Vector<Vector<double[]>> contours = new Vector<Vector<double[]>>();
+		for(int k = 0; k < levels.length; k++) {
+			Vector<double[]> lines = new Vector<double[]>();
+			HashSet<Integer> visited = new HashSet<Integer>();
+			//open lines start at points with only one neighbor, afterwards only closed lines are left
+			for(int pass = 0; pass < 2; pass++) {
+				for(Integer start : neighbors.get(k).keySet()) {
+					if(visited.contains(start) || (pass == 0 && neighbors.get(k).get(start)[1] != -1))
+						continue;
+					lines.add(walk(start, levels[k], neighbors.get(k), visited));
+				}
+			}
+			contours.add(lines);
+		}
+		return contours;
+	}
+
+	/**
+	 * index of the first level that is higher than the value
+	 */
+	private static int firstLevelAbove(double[] levels, double value) {
+		int low = 0;
+		int high = levels.length;
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(levels[middle] > value)
+				high = middle;
+			else
+				low = middle + 1;
+		}
+		return low;
+	}
+
+	private static void link(HashMap<Integer, int[]> neighbors, int from, int to) {
+		int[] n = neighbors.get(from);
+		if(n == null) {
+			n = new int[]{to, -1};
+			neighbors.put(from, n);
+		} else {
+			n[1] = to;
+		}
+	}
+
+	private double[] walk(int start, double level, HashMap<Integer, int[]> neighbors, HashSet<Integer> visited) {
+		Vector<Integer> ids = new Vector<Integer>();
+		int previous = -1;
+		int current = start;
+		while(true) {
+			ids.add(current);
+			visited.add(current);
+			int[] n = neighbors.get(current);
+			int next = (n[0] != previous)? n[0] : n[1];
+			if(next == -1 || next == previous)
+				break;
+			if(next == start) {
+				ids.add(start);
+				break;
+			}
+			if(visited.contains(next))
+				break;
+			previous = current;
+			current = next;
+		}
+		double[] line = new double[2*ids.size()];
+		for(int i = 0; i < ids.size(); i++)
+			point(ids.get(i), level, line, 2*i);
+		return line;
+	}
+}
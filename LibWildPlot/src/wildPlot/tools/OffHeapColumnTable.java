@@ -0,0 +1,327 @@
+/**
+ *
+ */
+package wildPlot.tools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import wildPlot.rendering.interfaces.ColumnTable;
+
+/**
+ * This class holds the columns of a table outside of the Java heap, either in direct buffers or in a memory mapped
+ * file. Mapped tables are only limited by the size of the disk, the operating system keeps the used parts in its
+ * page cache. The values are stored as little endian doubles or, to halve the memory, as floats. Floats are stored
+ * relative to an offset of their column in the middle of its range, so their precision depends on the width of the
+ * range and not on the distance of the values from 0, e.g. for time stamps.
+ * Buffers are limited to 2GB, so every column is split into windows of 2^27 values.
+ *
+ * @see wildPlot.rendering.interfaces.ColumnTable
+ * @see wildPlot.tools.TableCache
+ */
+public class OffHeapColumnTable implements ColumnTable {
+
+	/**
+	 * a window holds 2^WINDOW_SHIFT values
+	 */
+	private static final int WINDOW_SHIFT = 27;
+	private static final int WINDOW_MASK = (1 << WINDOW_SHIFT) - 1;
+
+	/**
+	 * windows of every column
+	 */
+	private ByteBuffer[][] windows;
+	private int rowCount;
+	private boolean isFloat;
+
+	/**
+	 * offset of every column that is added to its stored floats
+	 */
+	private double[] offsets;
+
+	private OffHeapColumnTable(int columnCount, int rowCount, boolean isFloat) {
+		super();
+		this.rowCount = rowCount;
+		this.isFloat = isFloat;
+		this.offsets = new double[columnCount];
+		this.windows = new ByteBuffer[columnCount][(int)(((long)rowCount + WINDOW_MASK) >> WINDOW_SHIFT)];
+	}
+
+	/**
+	 * copies columns into direct buffers
+	 * @param columns columns of the table, all of the same length
+	 * @param isFloat true if the values are stored as floats, this halves the memory but rounds the values,
+	 * if the range of a column does not fit into floats all values are stored as doubles
+	 * @return the table outside of the heap
+	 */
+	public static OffHeapColumnTable allocate(double[][] columns, boolean isFloat) {
+		int rowCount = (columns.length == 0)? 0 : columns[0].length;
+		double[] offsets = new double[columns.length];
+		for(int k = 0; k < columns.length && isFloat; k++) {
+			double minimum = Double.POSITIVE_INFINITY;
+			double maximum = Double.NEGATIVE_INFINITY;
+			for(int row = 0; row < rowCount; row++) {
+				if(columns[k][row] < minimum)
+					minimum = columns[k][row];
+				if(columns[k][row] > maximum)
+					maximum = columns[k][row];
+			}
+			isFloat = isFitting(minimum, maximum);
+			offsets[k] = getOffset(minimum, maximum);
+		}
+		OffHeapColumnTable table = new OffHeapColumnTable(columns.length, rowCount, isFloat);
+		int valueSize = table.getValueSize();
+		for(int k = 0; k < columns.length; k++) {
+			double offset = 0;
+			if(isFloat) {
+				offset = offsets[k];
+				table.offsets[k] = offset;
+			}
+			for(int w = 0; w < table.windows[k].length; w++) {
+				int start = w << WINDOW_SHIFT;
+				int count = Math.min(rowCount - start, 1 << WINDOW_SHIFT);
+				ByteBuffer window = ByteBuffer.allocateDirect(count*valueSize).order(ByteOrder.LITTLE_ENDIAN);
+				if(isFloat) {
+					for(int row = 0; row < count; row++)
+						window.putFloat(row*valueSize, (float)(columns[k][start + row] - offset));
+				} else {
+					window.asDoubleBuffer().put(columns[k], start, count);
+				}
+				table.windows[k][w] = window;
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * This class collects the blocks of a table that is parsed in direct buffers that grow as needed, so no more than
+	 * one block of the table is held on the heap. The values are collected as doubles, if the table stores floats they
+	 * are converted window by window when it is built, because the offsets of the columns are only known then.
+	 */
+	static class Builder implements TableReader.BlockWriter {
+
+		/**
+		 * number of values of the first buffer of a window, it doubles until it holds a whole window
+		 */
+		private static final int FIRST_WINDOW_SIZE = 1 << 16;
+
+		private boolean isFloat;
+		private ByteBuffer[][] windows = null;
+		private long rows = 0;
+		private double[] minima = null;
+		private double[] maxima = null;
+
+		/**
+		 * @param isFloat true if the built table stores floats
+		 */
+		public Builder(boolean isFloat) {
+			super();
+			this.isFloat = isFloat;
+		}
+
+		/**
+		 * appends the first rows of the given columns, the number of columns is set by the first block
+		 * @param columns columns of the block
+		 * @param rowCount number of rows of the block
+		 * @throws IOException if the table gets too many rows
+		 */
+		@Override
+		public void append(double[][] columns, int rowCount) throws IOException {
+			if(windows == null) {
+				windows = new ByteBuffer[columns.length][0];
+				minima = new double[columns.length];
+				maxima = new double[columns.length];
+				Arrays.fill(minima, Double.POSITIVE_INFINITY);
+				Arrays.fill(maxima, Double.NEGATIVE_INFINITY);
+			}
+			if(rows + rowCount > Integer.MAX_VALUE)
+				throw new IOException("OffHeapColumnTable: too many rows");
+			for(int k = 0; k < windows.length; k++) {
+				double[] column = columns[k];
+				for(int row = 0; row < rowCount; row++) {
+					if(column[row] < minima[k])
+						minima[k] = column[row];
+					if(column[row] > maxima[k])
+						maxima[k] = column[row];
+				}
+				int row = 0;
+				while(row < rowCount) {
+					long position = rows + row;
+					int w = (int)(position >>> WINDOW_SHIFT);
+					int index = (int)(position & WINDOW_MASK);
+					int count = Math.min(rowCount - row, (1 << WINDOW_SHIFT) - index);
+					DoubleBuffer values = reserve(k, w, index + count).asDoubleBuffer();
+					values.position(index);
+					values.put(column, row, count);
+					row += count;
+				}
+			}
+			rows += rowCount;
+		}
+
+		/**
+		 * grows the buffer of a window until it holds the given number of values
+		 */
+		private ByteBuffer reserve(int column, int w, int size) {
+			if(w == windows[column].length)
+				windows[column] = Arrays.copyOf(windows[column], w + 1);
+			ByteBuffer window = windows[column][w];
+			int capacity = (window == null)? 0 : window.capacity()/8;
+			if(capacity >= size)
+				return window;
+			int grownCapacity = Math.max(capacity, FIRST_WINDOW_SIZE);
+			while(grownCapacity < size)
+				grownCapacity = Math.min(2*grownCapacity, 1 << WINDOW_SHIFT);
+			ByteBuffer grown = ByteBuffer.allocateDirect(grownCapacity*8).order(ByteOrder.LITTLE_ENDIAN);
+			if(window != null) {
+				window.clear();
+				grown.put(window);
+				grown.clear();
+			}
+			windows[column][w] = grown;
+			return grown;
+		}
+
+		/**
+		 * @return the table of all appended rows, the builder can not be used afterwards
+		 */
+		public OffHeapColumnTable build() {
+			int columnCount = (windows == null)? 0 : windows.length;
+			int rowCount = (int)rows;
+			boolean isFloat = this.isFloat;
+			for(int k = 0; k < columnCount && isFloat; k++)
+				isFloat = isFitting(minima[k], maxima[k]);
+			OffHeapColumnTable table = new OffHeapColumnTable(columnCount, rowCount, isFloat);
+			int valueSize = table.getValueSize();
+			for(int k = 0; k < columnCount; k++) {
+				double offset = 0;
+				if(isFloat) {
+					offset = getOffset(minima[k], maxima[k]);
+					table.offsets[k] = offset;
+				}
+				for(int w = 0; w < table.windows[k].length; w++) {
+					int count = Math.min(rowCount - (w << WINDOW_SHIFT), 1 << WINDOW_SHIFT);
+					ByteBuffer doubles = windows[k][w];
+					windows[k][w] = null;
+					//full windows of doubles are used as they are, the others are cut to their values
+					if(!isFloat && doubles.capacity() == count*8) {
+						table.windows[k][w] = doubles;
+						continue;
+					}
+					ByteBuffer window = ByteBuffer.allocateDirect(count*valueSize).order(ByteOrder.LITTLE_ENDIAN);
+					if(isFloat) {
+						for(int row = 0; row < count; row++)
+							window.putFloat(row*valueSize, (float)(doubles.getDouble(row*8) - offset));
+					} else {
+						doubles.clear();
+						doubles.limit(count*8);
+						window.put(doubles);
+						window.clear();
+					}
+					table.windows[k][w] = window;
+				}
+			}
+			windows = null;
+			return table;
+		}
+	}
+
+	/**
+	 * maps columns that are stored one after another in a file, the mapping stays valid after the channel is closed
+	 * @param channel channel of the file
+	 * @param start position of the first value of the first column
+	 * @param columnCount number of columns
+	 * @param rowCount number of values of every column
+	 * @param isFloat true if the values are floats, false if they are doubles
+	 * @param offsets offset of every column that is added to its floats, null if they are not relative
+	 * @return the mapped table
+	 * @throws IOException if the file can not be mapped
+	 */
+	public static OffHeapColumnTable map(FileChannel channel, long start, int columnCount, int rowCount, boolean isFloat, double[] offsets) throws IOException {
+		OffHeapColumnTable table = new OffHeapColumnTable(columnCount, rowCount, isFloat);
+		if(isFloat && offsets != null)
+			System.arraycopy(offsets, 0, table.offsets, 0, columnCount);
+		int valueSize = table.getValueSize();
+		for(int k = 0; k < columnCount; k++) {
+			long columnStart = start + (long)k*rowCount*valueSize;
+			for(int w = 0; w < table.windows[k].length; w++) {
+				long windowStart = (long)w << WINDOW_SHIFT;
+				long count = Math.min(rowCount - windowStart, 1 << WINDOW_SHIFT);
+				ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, columnStart + windowStart*valueSize, count*valueSize);
+				table.windows[k][w] = window.order(ByteOrder.LITTLE_ENDIAN);
+			}
+		}
+		return table;
+	}
+
+	@Override
+	public int getColumnCount() {
+		return windows.length;
+	}
+
+	@Override
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	@Override
+	public double get(int column, int row) {
+		ByteBuffer window = windows[column][row >>> WINDOW_SHIFT];
+		int index = row & WINDOW_MASK;
+		return (isFloat)? offsets[column] + window.getFloat(index << 2) : window.getDouble(index << 3);
+	}
+
+	/**
+	 * the offset of floats is the middle of the range of their column, so no stored float is further from 0 than half
+	 * of the range, 0 if the range is not finite
+	 * @param minimum lowest value of the column
+	 * @param maximum highest value of the column
+	 * @return offset of the column
+	 */
+	public static double getOffset(double minimum, double maximum) {
+		double middle = minimum + (maximum - minimum)/2;
+		if(Double.isNaN(middle) || Double.isInfinite(middle))
+			return 0;
+		return middle;
+	}
+
+	/**
+	 * checks if the values of a column fit into floats relative to the offset of the column, values that do not are
+	 * stored as infinite floats
+	 * @param minimum lowest value of the column
+	 * @param maximum highest value of the column
+	 * @return true if the column has no values or all of them fit into floats
+	 */
+	public static boolean isFitting(double minimum, double maximum) {
+		if(minimum > maximum)
+			return true;
+		double offset = getOffset(minimum, maximum);
+		return maximum - offset <= Float.MAX_VALUE && offset - minimum <= Float.MAX_VALUE;
+	}
+
+	/**
+	 * @param column index of the column
+	 * @return offset that is added to the stored floats of the column, 0 if the values are doubles
+	 */
+	public double getOffset(int column) {
+		return offsets[column];
+	}
+
+	/**
+	 * @return true if the values are stored as floats
+	 */
+	public boolean isFloat() {
+		return isFloat;
+	}
+
+	/**
+	 * @return size of a stored value in bytes
+	 */
+	private int getValueSize() {
+		return (isFloat)? 4 : 8;
+	}
+}
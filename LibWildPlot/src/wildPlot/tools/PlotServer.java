@@ -0,0 +1,353 @@
+/**
+ *
+ */
+package wildPlot.tools;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.imageio.ImageIO;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import wildPlot.rendering.PlotSheet;
+
+/**
+ * This class is a small HTTP server that renders plot scripts. A plot script contains commands of the ProgramParser,
+ * one per line. The server keeps running, so compiled functions and fonts are reused by all requests.
+ *
+ * Requests go to /plot, the script is the body of a POST request or the parameter script of a GET request.
+ * Optional parameters: width and height in pixel (standard 1024), dpi (standard 72), format png or svg (standard png)
+ * and timeout in milliseconds (at most the timeout of the server).
+ * A request that is not rendered before its deadline is answered with 504 and its rendering is aborted, if all render
+ * threads are busy until the deadline it is answered with 503. A script with a wrong value is answered with 400. SVG images contain the rendered PNG image, they are no vector graphics.
+ *
+ * The server only listens on the loopback interface unless another address is given, because scripts can read every
+ * file the server can read.
+ *
+ * Usage: PlotServer [-bind address] [-port port] [-threads n] [-timeout milliseconds]
+ * @see wildPlot.parsing.ProgramParser
+ */
+public class PlotServer {
+
+	private static final int MAX_SIZE = 8192;
+
+	/**
+	 * longest script in characters that is accepted as body of a POST request
+	 */
+	private static final int MAX_SCRIPT_LENGTH = 1 << 20;
+
+	private HttpServer server;
+
+	/**
+	 * threads that render the plots, their number is the number of plots rendered at the same time
+	 */
+	private ExecutorService renderPool;
+
+	/**
+	 * permits for rendering, a request waits for a permit at most until its deadline
+	 */
+	private Semaphore renderPermits;
+
+	/**
+	 * longest time in milliseconds a request may take
+	 */
+	private long timeout;
+
+	/**
+	 * image of the last plot rendered by the thread, reused for the next plot of the same size
+	 */
+	private ThreadLocal<BufferedImage> imageBuffer = new ThreadLocal<BufferedImage>();
+
+	/**
+	 * Constructor of PlotServer that listens on the loopback interface, the server starts with start()
+	 * @param port port the server listens on
+	 * @param threadCount number of plots that are rendered at the same time
+	 * @param timeout longest time in milliseconds a request may take
+	 * @throws IOException if the port can not be used
+	 */
+	public PlotServer(int port, int threadCount, long timeout) throws IOException {
+		this(InetAddress.getByName(null), port, threadCount, timeout);
+	}
+
+	/**
+	 * Constructor of PlotServer, the server starts with start()
+	 * @param address address of the interface the server listens on
+	 * @param port port the server listens on
+	 * @param threadCount number of plots that are rendered at the same time
+	 * @param timeout longest time in milliseconds a request may take
+	 * @throws IOException if the port can not be used
+	 */
+	public PlotServer(InetAddress address, int port, int threadCount, long timeout) throws IOException {
+		super();
+		this.timeout = timeout;
+		this.renderPool = Executors.newFixedThreadPool(threadCount);
+		this.renderPermits = new Semaphore(threadCount);
+
+		ImageIO.setUseCache(false);
+		server = HttpServer.create(new InetSocketAddress(address, port), 0);
+		server.createContext("/plot", new PlotHandler());
+		//requests only wait for the render threads, so a few more of them than render threads are enough
+		server.setExecutor(Executors.newFixedThreadPool(2*threadCount));
+	}
+
+	/**
+	 * start answering requests
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * stop the server, running requests get the given time to finish
+	 * @param delay seconds to wait for running requests
+	 */
+	public void stop(int delay) {
+		server.stop(delay);
+		renderPool.shutdown();
+	}
+
+	/**
+	 * renders a script into a PNG image
+	 * @param script the plot script
+	 * @param width width of the image in pixel
+	 * @param height height of the image in pixel
+	 * @param dpi resolution of the image
+	 * @return PNG image
+	 * @throws IOException
+	 * @throws InterruptedException if the rendering was aborted because its request exceeded the deadline
+	 */
+	private byte[] renderPNG(String script, int width, int height, double dpi) throws IOException, InterruptedException {
+		BufferedImage image = imageBuffer.get();
+		if(image == null || image.getWidth() != width || image.getHeight() != height) {
+			image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			imageBuffer.set(image);
+		}
+		BatchRenderer.renderScript(new BufferedReader(new StringReader(script)), image, dpi);
+		//the plot sheet aborts its paint when the thread is interrupted, the image is incomplete and nobody waits for it
+		if(Thread.interrupted())
+			throw new InterruptedException("PlotServer: rendering aborted");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * wraps a PNG image into an SVG image
+	 * @param png PNG image
+	 * @param width width of the image in pixel
+	 * @param height height of the image in pixel
+	 * @return SVG image
+	 */
+	private static byte[] toSVG(byte[] png, int width, int height) throws UnsupportedEncodingException {
+		String svg = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+				+ "<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" width=\"" + width
+				+ "\" height=\"" + height + "\" viewBox=\"0 0 " + width + " " + height + "\">\n"
+				+ "<image width=\"" + width + "\" height=\"" + height + "\" xlink:href=\"data:image/png;base64,"
+				+ base64(png) + "\"/>\n</svg>\n";
+		return svg.getBytes("UTF-8");
+	}
+
+	private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+	/**
+	 * encodes data with base64
+	 * @param data data to encode
+	 * @return base64 string
+	 */
+	private static String base64(byte[] data) {
+		StringBuilder sb = new StringBuilder((data.length+2)/3*4);
+		for(int i = 0; i < data.length; i += 3) {
+			int b = (data[i] & 0xff) << 16;
+			if(i+1 < data.length) b |= (data[i+1] & 0xff) << 8;
+			if(i+2 < data.length) b |= (data[i+2] & 0xff);
+			sb.append(BASE64[(b >> 18) & 63]);
+			sb.append(BASE64[(b >> 12) & 63]);
+			sb.append((i+1 < data.length)? BASE64[(b >> 6) & 63] : '=');
+			sb.append((i+2 < data.length)? BASE64[b & 63] : '=');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * parses the parameters of a query string
+	 * @param query query string, may be null
+	 * @return parameters by name
+	 */
+	private static HashMap<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+		HashMap<String, String> parameters = new HashMap<String, String>();
+		if(query == null)
+			return parameters;
+		for(String parameter : query.split("&")) {
+			int separator = parameter.indexOf('=');
+			if(separator < 0)
+				parameters.put(URLDecoder.decode(parameter, "UTF-8"), "");
+			else
+				parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"), URLDecoder.decode(parameter.substring(separator+1), "UTF-8"));
+		}
+		return parameters;
+	}
+
+	private class PlotHandler implements HttpHandler {
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			long deadline = System.currentTimeMillis() + timeout;
+			try {
+				HashMap<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+				final String script;
+				if(exchange.getRequestMethod().equals("POST")) {
+					StringBuilder sb = new StringBuilder();
+					Reader reader = new InputStreamReader(exchange.getRequestBody(), "UTF-8");
+					char[] buffer = new char[8192];
+					int read;
+					while((read = reader.read(buffer)) >= 0) {
+						sb.append(buffer, 0, read);
+						if(sb.length() > MAX_SCRIPT_LENGTH) {
+							respond(exchange, 413, "text/plain", "script is too long\n".getBytes("UTF-8"));
+							return;
+						}
+					}
+					script = sb.toString();
+				} else if(exchange.getRequestMethod().equals("GET") && parameters.containsKey("script")) {
+					script = parameters.get("script");
+				} else {
+					respond(exchange, 405, "text/plain", "POST a plot script or GET with parameter script\n".getBytes("UTF-8"));
+					return;
+				}
+
+				final int width;
+				final int height;
+				final double dpi;
+				final boolean isSVG;
+				try {
+					width = parameters.containsKey("width")? Integer.parseInt(parameters.get("width")) : 1024;
+					height = parameters.containsKey("height")? Integer.parseInt(parameters.get("height")) : 1024;
+					dpi = parameters.containsKey("dpi")? Double.parseDouble(parameters.get("dpi")) : PlotSheet.DEFAULT_DPI;
+					if(parameters.containsKey("timeout"))
+						deadline = Math.min(deadline, System.currentTimeMillis() + Long.parseLong(parameters.get("timeout")));
+				} catch(NumberFormatException e) {
+					respond(exchange, 400, "text/plain", ("invalid number: " + e.getMessage() + "\n").getBytes("UTF-8"));
+					return;
+				}
+				String format = parameters.containsKey("format")? parameters.get("format") : "png";
+				isSVG = format.equalsIgnoreCase("svg");
+				if(width < 1 || height < 1 || width > MAX_SIZE || height > MAX_SIZE || !(dpi > 0) || Double.isInfinite(dpi) || (!isSVG && !format.equalsIgnoreCase("png"))) {
+					respond(exchange, 400, "text/plain", "invalid size, resolution or format\n".getBytes("UTF-8"));
+					return;
+				}
+
+				if(!renderPermits.tryAcquire(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS)) {
+					respond(exchange, 503, "text/plain", "all render threads are busy\n".getBytes("UTF-8"));
+					return;
+				}
+				//the permit is given back by the render thread, so plots that exceed their deadline still count
+				//until they are finished
+				Future<byte[]> result;
+				try {
+					result = renderPool.submit(new Callable<byte[]>() {
+						@Override
+						public byte[] call() throws Exception {
+							try {
+								byte[] png = renderPNG(script, width, height, dpi);
+								return isSVG? toSVG(png, width, height) : png;
+							} finally {
+								renderPermits.release();
+							}
+						}
+					});
+				} catch(RuntimeException e) {
+					renderPermits.release();
+					throw e;
+				}
+
+				try {
+					byte[] image = result.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+					respond(exchange, 200, isSVG? "image/svg+xml" : "image/png", image);
+				} catch(TimeoutException e) {
+					//interrupting the render thread aborts the paint, so the thread and its permit are free again soon
+					result.cancel(true);
+					respond(exchange, 504, "text/plain", "plot was not rendered before the deadline\n".getBytes("UTF-8"));
+				} catch(ExecutionException e) {
+					//a script with a wrong value only fails its own request
+					if(e.getCause() instanceof IllegalArgumentException) {
+						respond(exchange, 400, "text/plain", ("invalid plot script: " + e.getCause().getMessage() + "\n").getBytes("UTF-8"));
+						return;
+					}
+					respond(exchange, 500, "text/plain", ("could not render plot: " + e.getCause() + "\n").getBytes("UTF-8"));
+				}
+			} catch(InterruptedException e) {
+				respond(exchange, 503, "text/plain", "server is stopping\n".getBytes("UTF-8"));
+			} finally {
+				exchange.close();
+			}
+		}
+
+		private void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+			exchange.getResponseHeaders().set("Content-Type", contentType);
+			exchange.sendResponseHeaders(status, body.length);
+			OutputStream out = exchange.getResponseBody();
+			out.write(body);
+			out.close();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		InetAddress address = null;
+		int port = 8080;
+		int threadCount = Runtime.getRuntime().availableProcessors();
+		long timeout = 10000;
+		try {
+			for(int i = 0; i < args.length; i++) {
+				if(args[i].equals("-bind")) {
+					address = InetAddress.getByName(args[++i]);
+				} else if(args[i].equals("-port")) {
+					port = Integer.parseInt(args[++i]);
+				} else if(args[i].equals("-threads")) {
+					threadCount = Integer.parseInt(args[++i]);
+				} else if(args[i].equals("-timeout")) {
+					timeout = Long.parseLong(args[++i]);
+				} else {
+					throw new IllegalArgumentException(args[i]);
+				}
+			}
+			if(threadCount < 1 || timeout < 1)
+				throw new IllegalArgumentException();
+		} catch(RuntimeException e) {
+			System.err.println("Usage: PlotServer [-bind address] [-port port] [-threads n] [-timeout milliseconds]");
+			System.exit(-1);
+		} catch(UnknownHostException e) {
+			System.err.println("PlotServer:Error::Unknown bind address " + e.getMessage());
+			System.exit(-1);
+		}
+		if(address == null)
+			address = InetAddress.getByName(null);
+		//the server never opens a window
+		System.setProperty("java.awt.headless", "true");
+		PlotServer plotServer = new PlotServer(address, port, threadCount, timeout);
+		plotServer.start();
+		System.out.println("PlotServer listening on " + address.getHostAddress() + " port " + port);
+	}
+}
@@ -0,0 +1,260 @@
+/**
+ *
+ */
+package wildPlot.tools;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * This class estimates quantiles of a stream of values in little memory with a sketch after Karnin, Lang and Liberty (KLL).
+ * The values are kept in compactors of rising levels, a value on level h stands for 2^h values of the stream.
+ * If the sketch is full, a compactor sorts its values and moves every second one to the next level.
+ * Sketches that were filled independently, for example by several threads, can be merged into one.
+ * The rank error of the quantiles is in the order of 1/k, below 1% for the standard k of 200.
+ *
+ */
+public class QuantileSketch {
+
+	/**
+	 * capacity of the highest compactor, the lower ones get smaller by the factor 2/3 down to 2
+	 */
+	private int k;
+
+	/**
+	 * values of every compactor, only the first sizes[h] values of levels[h] are used
+	 */
+	private double[][] levels = new double[1][];
+	private int[] sizes = new int[1];
+
+	/**
+	 * capacity of every compactor, their sum and the number of values in all compactors, the capacities only change
+	 * when a level is added
+	 */
+	private int[] capacities = new int[1];
+	private int totalCapacity = 0;
+	private int totalSize = 0;
+
+	/**
+	 * number of values added to this sketch and all sketches merged into it
+	 */
+	private long count = 0;
+
+	private double minimum = Double.POSITIVE_INFINITY;
+	private double maximum = Double.NEGATIVE_INFINITY;
+
+	private Random random = new Random(0x5eed);
+
+	/**
+	 * Creates a new sketch
+	 * @param k accuracy parameter, a higher value gives more accurate quantiles with more memory
+	 */
+	public QuantileSketch(int k) {
+		super();
+		if(k < 8){
+			System.err.println("QuantileSketch:Error::Wrong accuracy parameter (smaller than 8)");
+			System.exit(-1);
+		}
+		this.k = k;
+		updateCapacities();
+		this.levels[0] = new double[capacities[0]];
+	}
+
+	/**
+	 * Creates a new sketch with k = 200
+	 */
+	public QuantileSketch() {
+		this(200);
+	}
+
+	/**
+	 * calculates the capacities of all compactors for the current number of levels
+	 */
+	private void updateCapacities() {
+		capacities = new int[levels.length];
+		totalCapacity = 0;
+		for(int h = 0; h < levels.length; h++) {
+			int depth = levels.length - 1 - h;
+			capacities[h] = Math.max(2, (int)Math.ceil(k*Math.pow(2.0/3.0, depth)));
+			totalCapacity += capacities[h];
+		}
+	}
+
+	/**
+	 * add a value to the sketch, NaN values are ignored
+	 * @param value value of the stream
+	 */
+	public void add(double value) {
+		if(value != value)
+			return;
+		if(value < minimum)
+			minimum = value;
+		if(value > maximum)
+			maximum = value;
+		count++;
+		append(0, value);
+		if(totalSize > totalCapacity)
+			compress();
+	}
+
+	/**
+	 * merge another sketch into this one, afterwards this sketch estimates the quantiles of the values of both
+	 * @param other sketch that is merged, it is not changed
+	 */
+	public void merge(QuantileSketch other) {
+		if(other.count == 0)
+			return;
+		while(levels.length < other.levels.length)
+			addLevel();
+		for(int h = 0; h < other.levels.length; h++) {
+			for(int i = 0; i < other.sizes[h]; i++)
+				append(h, other.levels[h][i]);
+		}
+		count += other.count;
+		minimum = Math.min(minimum, other.minimum);
+		maximum = Math.max(maximum, other.maximum);
+		if(totalSize > totalCapacity)
+			compress();
+	}
+
+	private void append(int level, double value) {
+		if(sizes[level] == levels[level].length)
+			levels[level] = Arrays.copyOf(levels[level], Math.max(2*levels[level].length, 2));
+		levels[level][sizes[level]++] = value;
+		totalSize++;
+	}
+
+	private void addLevel() {
+		levels = Arrays.copyOf(levels, levels.length + 1);
+		sizes = Arrays.copyOf(sizes, sizes.length + 1);
+		levels[levels.length - 1] = new double[2];
+		updateCapacities();
+	}
+
+	/**
+	 * compacts the lowest full compactors until the sketch is within its capacity
+	 */
+	private void compress() {
+		while(totalSize > totalCapacity) {
+			for(int h = 0; h < levels.length; h++) {
+				if(sizes[h] >= capacities[h]) {
+					compact(h);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * sorts the compactor and moves every second value to the next level, the values at odd or even positions are
+	 * chosen at random, so the errors cancel out on average
+	 */
+	private void compact(int level) {
+		if(level == levels.length - 1)
+			addLevel();
+		double[] values = levels[level];
+		int size = sizes[level];
+		Arrays.sort(values, 0, size);
+		//an odd value stays on this level
+		int pairs = size/2;
+		int offset = random.nextBoolean()? 1 : 0;
+		for(int i = 0; i < pairs; i++)
+			append(level + 1, values[2*i + offset]);
+		if(size%2 == 1) {
+			values[0] = values[size - 1];
+			sizes[level] = 1;
+		} else {
+			sizes[level] = 0;
+		}
+		totalSize -= size - sizes[level];
+	}
+
+	/**
+	 * @return number of values in the stream
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return lowest value of the stream
+	 */
+	public double getMinimum() {
+		return minimum;
+	}
+
+	/**
+	 * @return highest value of the stream
+	 */
+	public double getMaximum() {
+		return maximum;
+	}
+
+	/**
+	 * estimate a quantile of the stream
+	 * @param rank rank of the quantile between 0 and 1
+	 * @return the value below which about rank of all values lie, NaN if the sketch is empty
+	 */
+	public double getQuantile(double rank) {
+		return getQuantiles(new double[]{rank})[0];
+	}
+
+	/**
+	 * estimate several quantiles of the stream at once
+	 * @param ranks ranks of the quantiles between 0 and 1
+	 * @return the value below which about rank of all values lie for every rank, NaN if the sketch is empty
+	 */
+	public double[] getQuantiles(double[] ranks) {
+		double[] quantiles = new double[ranks.length];
+		if(count == 0) {
+			Arrays.fill(quantiles, Double.NaN);
+			return quantiles;
+		}
+
+		//all values with their weights sorted by value
+		int size = 0;
+		for(int h = 0; h < levels.length; h++)
+			size += sizes[h];
+		double[][] weightedValues = new double[size][];
+		int position = 0;
+		for(int h = 0; h < levels.length; h++) {
+			for(int i = 0; i < sizes[h]; i++)
+				weightedValues[position++] = new double[]{levels[h][i], 1L << h};
+		}
+		Arrays.sort(weightedValues, new Comparator<double[]>() {
+			@Override
+			public int compare(double[] a, double[] b) {
+				return Double.compare(a[0], b[0]);
+			}
+		});
+		double[] cumulativeWeights = new double[size];
+		double totalWeight = 0;
+		for(int i = 0; i < size; i++) {
+			totalWeight += weightedValues[i][1];
+			cumulativeWeights[i] = totalWeight;
+		}
+
+		for(int r = 0; r < ranks.length; r++) {
+			if(ranks[r] <= 0) {
+				quantiles[r] = minimum;
+			} else if(ranks[r] >= 1) {
+				quantiles[r] = maximum;
+			} else {
+				//first value whose cumulative weight reaches the rank
+				double target = ranks[r]*totalWeight;
+				int low = 0;
+				int high = size - 1;
+				while(low < high) {
+					int middle = (low + high) >>> 1;
+					if(cumulativeWeights[middle] < target)
+						low = middle + 1;
+					else
+						high = middle;
+				}
+				quantiles[r] = weightedValues[low][0];
+			}
+		}
+		return quantiles;
+	}
+}
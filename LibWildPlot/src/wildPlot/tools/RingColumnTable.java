@@ -0,0 +1,108 @@
+/**
+ *
+ */
+package wildPlot.tools;
+
+import wildPlot.rendering.interfaces.ColumnTable;
+
+/**
+ * This class holds the newest rows of a table in a ring buffer of fixed capacity, when more rows are appended the
+ * oldest ones are overwritten. Row 0 is always the oldest row that is held. One thread appends rows while others
+ * read them, a read that overlaps an append may already see some of the new values in place of the oldest rows, the
+ * readers are expected to read again after the append.
+ *
+ * @see wildPlot.tools.TableReader#openTail(int)
+ */
+public class RingColumnTable implements ColumnTable {
+
+	private int capacity;
+
+	/**
+	 * values of every column, the row with the total index i is stored at i % capacity
+	 */
+	private volatile double[][] columns = null;
+
+	/**
+	 * number of rows that are appended since the table was created or cleared
+	 */
+	private volatile long end = 0;
+
+	/**
+	 * Constructor of RingColumnTable
+	 * @param capacity number of rows that are held
+	 */
+	public RingColumnTable(int capacity) {
+		super();
+		if(capacity < 1){
+			System.err.println("RingColumnTable:Error::Wrong capacity (smaller than 1)");
+			System.exit(-1);
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+	 * appends the first rows of the given columns, the number of columns is set by the first block after the table
+	 * is created or cleared, this must only be called by one thread
+	 * @param block columns of the rows
+	 * @param rowCount number of rows to append, if this is more than the capacity only the last rows are kept
+	 */
+	public void append(double[][] block, int rowCount) {
+		double[][] columns = this.columns;
+		long end = this.end;
+		int first = Math.max(0, rowCount - capacity);
+		if(columns == null || (end == 0 && columns.length != block.length)) {
+			columns = new double[block.length][capacity];
+			this.columns = columns;
+		}
+		for(int k = 0; k < columns.length; k++) {
+			int index = (int)((end + first) % capacity);
+			for(int row = first; row < rowCount;) {
+				int count = Math.min(rowCount - row, capacity - index);
+				System.arraycopy(block[k], row, columns[k], index, count);
+				row += count;
+				index = 0;
+			}
+		}
+		this.end = end + rowCount;
+	}
+
+	/**
+	 * removes all rows, the next block may have a different number of columns,
+	 * this must only be called by the appending thread
+	 */
+	public void clear() {
+		this.end = 0;
+	}
+
+	/**
+	 * @return number of rows that are held at most
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return number of rows that are appended since the table was created or cleared, including overwritten ones
+	 */
+	public long getAppendedRowCount() {
+		return end;
+	}
+
+	@Override
+	public int getColumnCount() {
+		double[][] columns = this.columns;
+		return (columns == null)? 0 : columns.length;
+	}
+
+	@Override
+	public int getRowCount() {
+		return (int)Math.min(end, capacity);
+	}
+
+	@Override
+	public double get(int column, int row) {
+		long end = this.end;
+		long start = end - Math.min(end, capacity);
+		return columns[column][(int)((start + row) % capacity)];
+	}
+}
@@ -0,0 +1,497 @@
+/**
+ *
+ */
+package wildPlot.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+import wildPlot.rendering.interfaces.ColumnTable;
+
+/**
+ * This class stores the columns of a parsed table file in a binary sidecar file next to it, so the table does not
+ * have to be parsed again the next time it is plotted. The sidecar has the name of the table file with ".wpc" appended.
+ * It starts with a header holding the row count, the lowest and highest value of every column and a fingerprint of the
+ * table file, followed by every column as little endian doubles. The columns can be copied onto the heap or mapped
+ * as an OffHeapColumnTable. A sidecar is only used while the fingerprint matches,
+ * so it is written anew when the table file changes.
+ * A sidecar of floats has ".wpf" appended instead, its floats are relative to the middle of the range of their column.
+ * If the range of a column does not fit into floats, it holds doubles like the other sidecar.
+ *
+ * @see wildPlot.tools.TableReader
+ */
+public class TableCache {
+
+	/**
+	 * "WPTC" in little endian
+	 */
+	private static final int MAGIC = 0x43545057;
+	private static final int VERSION = 1;
+
+	/**
+	 * magic, version, size of a value, column count, row count, length, modification time and checksum of the table
+	 * file, followed by the lowest and highest value of every column
+	 */
+	private static final int HEADER_SIZE = 48;
+
+	/**
+	 * the checksum covers this many bytes at the start and at the end of the table file, so checking it does not
+	 * require reading the whole file
+	 */
+	private static final int CHECKSUM_BLOCK_SIZE = 1 << 16;
+
+	/**
+	 * columns are mapped in windows of at most this size
+	 */
+	private static final long MAP_WINDOW_SIZE = 1L << 26;
+
+	private File source;
+	private File cacheFile;
+
+	/**
+	 * lowest and highest value of every column, NaN values are left out
+	 */
+	private double[] minima = null;
+	private double[] maxima = null;
+	private int columnCount = 0;
+	private int rowCount = 0;
+
+	/**
+	 * if true the values are stored as floats unless the range of a column does not fit into floats
+	 */
+	private boolean isFloat;
+
+	/**
+	 * size of the values of the last read or written sidecar
+	 */
+	private int valueSize = 8;
+
+	/**
+	 * Constructor of TableCache
+	 * @param fileName table file whose columns are cached
+	 */
+	public TableCache(String fileName) {
+		this(fileName, false);
+	}
+
+	/**
+	 * Constructor of TableCache
+	 * @param fileName table file whose columns are cached
+	 * @param isFloat true if the values are stored as floats, this halves the size of the sidecar but rounds the values
+	 */
+	public TableCache(String fileName, boolean isFloat) {
+		super();
+		this.source = new File(fileName);
+		this.cacheFile = new File(fileName + ((isFloat)? ".wpf" : ".wpc"));
+		this.isFloat = isFloat;
+	}
+
+	/**
+	 * reads the columns from the sidecar with a memory map
+	 * @return columns of the table, null if there is no sidecar or it does not belong to the current table file
+	 * @throws IOException if the sidecar can not be read
+	 */
+	public double[][] read() throws IOException {
+		RandomAccessFile file = openCacheFile();
+		if(file == null)
+			return null;
+		try {
+			FileChannel channel = file.getChannel();
+			long dataStart = readHeader(channel);
+			if(dataStart < 0)
+				return null;
+
+			//the mapped doubles are copied in bulk, this is bound by the speed of memory, not of parsing
+			double[][] columns = new double[columnCount][rowCount];
+			for(int k = 0; k < columnCount; k++) {
+				long columnStart = dataStart + (long)valueSize*k*rowCount;
+				double offset = getOffset(k);
+				int row = 0;
+				while(row < rowCount) {
+					int count = (int)Math.min(rowCount - row, MAP_WINDOW_SIZE/valueSize);
+					MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, columnStart + (long)valueSize*row, (long)valueSize*count);
+					window.order(ByteOrder.LITTLE_ENDIAN);
+					if(valueSize == 4) {
+						for(int i = 0; i < count; i++)
+							columns[k][row + i] = offset + window.getFloat(4*i);
+					} else {
+						window.asDoubleBuffer().get(columns[k], row, count);
+					}
+					row += count;
+				}
+			}
+			return columns;
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * maps the columns of the sidecar without copying them onto the heap
+	 * @return columns of the table, null if there is no sidecar or it does not belong to the current table file
+	 * @throws IOException if the sidecar can not be read
+	 */
+	public ColumnTable map() throws IOException {
+		RandomAccessFile file = openCacheFile();
+		if(file == null)
+			return null;
+		try {
+			FileChannel channel = file.getChannel();
+			long dataStart = readHeader(channel);
+			if(dataStart < 0)
+				return null;
+			double[] offsets = new double[columnCount];
+			for(int k = 0; k < columnCount; k++)
+				offsets[k] = getOffset(k);
+			return OffHeapColumnTable.map(channel, dataStart, columnCount, rowCount, valueSize == 4, offsets);
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * @return the opened sidecar, null if there is none
+	 */
+	private RandomAccessFile openCacheFile() throws IOException {
+		if(!cacheFile.isFile() || cacheFile.length() < HEADER_SIZE)
+			return null;
+		return new RandomAccessFile(cacheFile, "r");
+	}
+
+	/**
+	 * reads the header of the sidecar and checks that it belongs to the current table file
+	 * @return position of the first column, -1 if the sidecar can not be used
+	 */
+	private long readHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, header, 0);
+		header.flip();
+		if(header.getInt() != MAGIC || header.getInt() != VERSION)
+			return -1;
+		int size = header.getInt();
+		if(size != 8 && !(isFloat && size == 4))
+			return -1;
+		int columns = header.getInt();
+		long rows = header.getLong();
+		if(columns < 0 || rows < 0 || rows > Integer.MAX_VALUE)
+			return -1;
+		if(header.getLong() != source.length() || header.getLong() != source.lastModified() || header.getLong() != checksum(source))
+			return -1;
+		long dataStart = HEADER_SIZE + 16L*columns;
+		if(channel.size() != dataStart + (long)size*columns*rows)
+			return -1;
+
+		ByteBuffer ranges = ByteBuffer.allocate(16*columns).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, ranges, HEADER_SIZE);
+		ranges.flip();
+		this.columnCount = columns;
+		this.rowCount = (int)rows;
+		this.valueSize = size;
+		this.minima = new double[columns];
+		this.maxima = new double[columns];
+		for(int k = 0; k < columns; k++) {
+			minima[k] = ranges.getDouble();
+			maxima[k] = ranges.getDouble();
+		}
+		return dataStart;
+	}
+
+	/**
+	 * writes the columns to the sidecar, the sidecar is written to a temporary file first and then renamed,
+	 * so no other reader ever sees a half written sidecar
+	 * @param columns columns of the table, all of the same length
+	 * @throws IOException if the sidecar can not be written
+	 */
+	public void write(double[][] columns) throws IOException {
+		ColumnWriter writer = new ColumnWriter();
+		try {
+			writer.append(columns, (columns.length == 0)? 0 : columns[0].length);
+			writer.close();
+		} finally {
+			writer.delete();
+		}
+	}
+
+	/**
+	 * This class writes a sidecar block by block, so the whole table never has to be held on the heap.
+	 * Every column is collected in its own temporary file, on close the header and all columns are joined
+	 * into the sidecar. The temporary files have unique names in the directory of the sidecar, so several writers
+	 * of the same sidecar do not disturb each other, the last one that closes replaces the sidecar.
+	 * If a temporary file can not be written the following blocks are dropped and the error is thrown on close,
+	 * so a parser that appends to the writer is not interrupted by it.
+	 */
+	public class ColumnWriter implements TableReader.BlockWriter {
+
+		private File[] columnFiles = null;
+		private FileChannel[] columnChannels = null;
+		private long rows = 0;
+		private double[] blockMinima = null;
+		private double[] blockMaxima = null;
+		private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+		/**
+		 * first error while writing the temporary files, null if there was none
+		 */
+		private IOException failure = null;
+
+		/**
+		 * appends the first rows of the given columns, the number of columns is set by the first block
+		 * @param columns columns of the block
+		 * @param rowCount number of rows of the block
+		 */
+		@Override
+		public void append(double[][] columns, int rowCount) {
+			if(failure != null)
+				return;
+			try {
+				write(columns, rowCount);
+			} catch (IOException e) {
+				failure = e;
+				delete();
+			}
+		}
+
+		/**
+		 * @return true if a temporary file could not be written, the sidecar can not be written then
+		 */
+		public boolean hasFailed() {
+			return failure != null;
+		}
+
+		private void write(double[][] columns, int rowCount) throws IOException {
+			if(columnFiles == null) {
+				columnFiles = new File[columns.length];
+				columnChannels = new FileChannel[columns.length];
+				blockMinima = new double[columns.length];
+				blockMaxima = new double[columns.length];
+				for(int k = 0; k < columns.length; k++) {
+					columnFiles[k] = createTemporaryFile();
+					RandomAccessFile file = new RandomAccessFile(columnFiles[k], "rw");
+					file.setLength(0);
+					columnChannels[k] = file.getChannel();
+					blockMinima[k] = Double.POSITIVE_INFINITY;
+					blockMaxima[k] = Double.NEGATIVE_INFINITY;
+				}
+			}
+			for(int k = 0; k < columnChannels.length; k++) {
+				double[] column = columns[k];
+				for(int row = 0; row < rowCount; row++) {
+					if(column[row] < blockMinima[k])
+						blockMinima[k] = column[row];
+					if(column[row] > blockMaxima[k])
+						blockMaxima[k] = column[row];
+				}
+				int row = 0;
+				while(row < rowCount) {
+					int count = Math.min(rowCount - row, buffer.remaining()/8);
+					buffer.asDoubleBuffer().put(column, row, count);
+					buffer.position(buffer.position() + 8*count);
+					row += count;
+					flush(columnChannels[k], buffer);
+				}
+			}
+			rows += rowCount;
+		}
+
+		/**
+		 * joins the header and the columns into the sidecar
+		 * @throws IOException if the sidecar can not be written
+		 */
+		public void close() throws IOException {
+			if(failure != null)
+				throw failure;
+			int columns = (columnFiles == null)? 0 : columnFiles.length;
+			if(rows > Integer.MAX_VALUE)
+				throw new IOException("TableCache: too many rows for " + cacheFile);
+			int storedSize = 8;
+			if(isFloat) {
+				storedSize = 4;
+				for(int k = 0; k < columns; k++) {
+					if(!OffHeapColumnTable.isFitting(blockMinima[k], blockMaxima[k]))
+						storedSize = 8;
+				}
+			}
+			File temporaryFile = createTemporaryFile();
+			RandomAccessFile file = new RandomAccessFile(temporaryFile, "rw");
+			boolean isJoined = false;
+			try {
+				file.setLength(0);
+				FileChannel channel = file.getChannel();
+				buffer.clear();
+				buffer.putInt(MAGIC);
+				buffer.putInt(VERSION);
+				buffer.putInt(storedSize);
+				buffer.putInt(columns);
+				buffer.putLong(rows);
+				buffer.putLong(source.length());
+				buffer.putLong(source.lastModified());
+				buffer.putLong(checksum(source));
+				for(int k = 0; k < columns; k++) {
+					if(buffer.remaining() < 16)
+						flush(channel, buffer);
+					buffer.putDouble(blockMinima[k]);
+					buffer.putDouble(blockMaxima[k]);
+				}
+				flush(channel, buffer);
+				for(int k = 0; k < columns; k++) {
+					if(storedSize == 4) {
+						writeFloats(columnChannels[k], channel, OffHeapColumnTable.getOffset(blockMinima[k], blockMaxima[k]));
+						continue;
+					}
+					long position = 0;
+					long size = columnChannels[k].size();
+					while(position < size)
+						position += columnChannels[k].transferTo(position, size - position, channel);
+				}
+				isJoined = true;
+			} finally {
+				file.close();
+				delete();
+				//the name is unique, so an incomplete file would never be overwritten
+				if(!isJoined)
+					temporaryFile.delete();
+			}
+			if(!temporaryFile.renameTo(cacheFile)) {
+				//some systems do not replace existing files on rename
+				cacheFile.delete();
+				if(!temporaryFile.renameTo(cacheFile)) {
+					temporaryFile.delete();
+					throw new IOException("TableCache: could not write " + cacheFile);
+				}
+			}
+			columnCount = columns;
+			rowCount = (int)rows;
+			valueSize = storedSize;
+			minima = (blockMinima == null)? new double[0] : blockMinima;
+			maxima = (blockMaxima == null)? new double[0] : blockMaxima;
+		}
+
+		/**
+		 * converts the doubles of a temporary column file into floats relative to the offset of the column,
+		 * the offset is only known after all blocks are appended
+		 * @param column channel of the temporary column file
+		 * @param channel channel of the sidecar
+		 * @param offset offset of the column
+		 */
+		private void writeFloats(FileChannel column, FileChannel channel, double offset) throws IOException {
+			ByteBuffer doubles = ByteBuffer.allocateDirect(buffer.capacity()).order(ByteOrder.LITTLE_ENDIAN);
+			long position = 0;
+			long size = column.size();
+			buffer.clear();
+			while(position < size) {
+				doubles.clear();
+				doubles.limit((int)Math.min(doubles.capacity(), size - position));
+				readFully(column, doubles, position);
+				position += doubles.limit();
+				doubles.flip();
+				while(doubles.hasRemaining())
+					buffer.putFloat((float)(doubles.getDouble() - offset));
+				flush(channel, buffer);
+			}
+		}
+
+		/**
+		 * creates a temporary file with a unique name in the directory of the sidecar, so it can be renamed to it
+		 */
+		private File createTemporaryFile() throws IOException {
+			return File.createTempFile(cacheFile.getName() + ".", ".tmp", cacheFile.getAbsoluteFile().getParentFile());
+		}
+
+		/**
+		 * deletes the temporary column files, the sidecar is left as it is
+		 */
+		public void delete() {
+			if(columnFiles == null)
+				return;
+			for(int k = 0; k < columnFiles.length; k++) {
+				try {
+					if(columnChannels[k] != null)
+						columnChannels[k].close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				if(columnFiles[k] != null)
+					columnFiles[k].delete();
+			}
+			columnFiles = null;
+		}
+	}
+
+	/**
+	 * @param column index of the column
+	 * @return lowest and highest value of the column after the last read or write, NaN values are left out
+	 */
+	public double[] getRange(int column) {
+		double[] range = {minima[column], maxima[column]};
+		return range;
+	}
+
+	/**
+	 * @return the sidecar file
+	 */
+	public File getCacheFile() {
+		return cacheFile;
+	}
+
+	/**
+	 * @return true if the sidecar of the last read or write holds floats
+	 */
+	public boolean isFloat() {
+		return valueSize == 4;
+	}
+
+	/**
+	 * @param column index of the column
+	 * @return offset that is added to the stored floats of the column
+	 */
+	private double getOffset(int column) {
+		return (valueSize == 4)? OffHeapColumnTable.getOffset(minima[column], maxima[column]) : 0;
+	}
+
+	/**
+	 * CRC32 of the first and the last bytes of the table file, together with its length and modification time
+	 * this detects changed table files without reading all of them
+	 * @param source table file
+	 */
+	static long checksum(File source) throws IOException {
+		CRC32 crc = new CRC32();
+		RandomAccessFile file = new RandomAccessFile(source, "r");
+		try {
+			long length = file.length();
+			byte[] block = new byte[(int)Math.min(length, CHECKSUM_BLOCK_SIZE)];
+			file.readFully(block);
+			crc.update(block);
+			if(length > CHECKSUM_BLOCK_SIZE) {
+				block = new byte[(int)Math.min(length - CHECKSUM_BLOCK_SIZE, CHECKSUM_BLOCK_SIZE)];
+				file.seek(length - block.length);
+				file.readFully(block);
+				crc.update(block);
+			}
+		} finally {
+			file.close();
+		}
+		return crc.getValue();
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if(read < 0)
+				throw new IOException("TableCache: unexpected end of file");
+			position += read;
+		}
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+}
@@ -0,0 +1,252 @@
+/**
+ *
+ */
+package wildPlot.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * This class holds a sparse index of a table file whose x-values never decrease. Every INTERVAL-th row is stored with
+ * its x-value and the position of its line in the file, so a read of a narrow x-range can start near the first row of
+ * the range instead of at the start of the file. The index is stored in a sidecar file with the name of the table
+ * file and ".wpx" appended, it is only used while the fingerprint of the table file matches, like the sidecar of
+ * TableCache. An index of a table whose x-values are not sorted only records that they are not.
+ *
+ * @see wildPlot.tools.TableReader#setXRange(double, double)
+ */
+public class TableIndex {
+
+	/**
+	 * "WPTX" in little endian
+	 */
+	private static final int MAGIC = 0x58545057;
+	private static final int VERSION = 1;
+
+	/**
+	 * magic, version, x-column, column count, entry count, sorted flag, length, modification time and checksum of the
+	 * table file
+	 */
+	private static final int HEADER_SIZE = 48;
+
+	/**
+	 * number of rows between two entries of the index
+	 */
+	public static final int INTERVAL = 1024;
+
+	private File source;
+	private File indexFile;
+
+	/**
+	 * column of the table file that holds the x-values
+	 */
+	private int xColumn;
+
+	/**
+	 * number of columns of the table file
+	 */
+	private int columnCount = 0;
+
+	private boolean isSorted = true;
+
+	/**
+	 * x-value and line position of every entry
+	 */
+	private double[] xValues = new double[64];
+	private long[] positions = new long[64];
+	private int entryCount = 0;
+
+	/**
+	 * number of rows that were added and x-value of the last one, only used while the index is built
+	 */
+	private long rowCount = 0;
+	private double lastX = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Constructor of TableIndex
+	 * @param fileName table file that is indexed
+	 * @param xColumn column of the table file that holds the x-values
+	 */
+	public TableIndex(String fileName, int xColumn) {
+		super();
+		this.source = new File(fileName);
+		this.indexFile = new File(fileName + ".wpx");
+		this.xColumn = xColumn;
+	}
+
+	/**
+	 * adds the next row of the table file while it is parsed, every row has to be added in the order of the file
+	 * @param x x-value of the row
+	 * @param position position of the first byte of the line in the file
+	 */
+	public void addRow(double x, long position) {
+		if(!isSorted)
+			return;
+		//NaN is not sorted either
+		if(!(x >= lastX)) {
+			isSorted = false;
+			entryCount = 0;
+			return;
+		}
+		lastX = x;
+		if(rowCount++ % INTERVAL != 0)
+			return;
+		if(entryCount == xValues.length) {
+			xValues = Arrays.copyOf(xValues, 2*entryCount);
+			positions = Arrays.copyOf(positions, 2*entryCount);
+		}
+		xValues[entryCount] = x;
+		positions[entryCount] = position;
+		entryCount++;
+	}
+
+	/**
+	 * @param columnCount number of columns of the table file
+	 */
+	public void setColumnCount(int columnCount) {
+		this.columnCount = columnCount;
+	}
+
+	/**
+	 * @return number of columns of the table file
+	 */
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	/**
+	 * @return true if the x-values of the table file never decrease, only then the index can be used for seeking
+	 */
+	public boolean isSorted() {
+		return isSorted;
+	}
+
+	/**
+	 * searches the position to start reading from for the rows with an x-value of at least xStart, all rows before it
+	 * have lower x-values
+	 * @param xStart lowest x-value that is read
+	 * @return position of a line in the table file, 0 if the reading has to start at the beginning
+	 */
+	public long seek(double xStart) {
+		//last entry with an x-value lower than xStart
+		int low = 0;
+		int high = entryCount;
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(xValues[middle] < xStart) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return (low == 0)? 0 : positions[low - 1];
+	}
+
+	/**
+	 * reads the index from the sidecar
+	 * @return true if the sidecar belongs to the current table file and its x-column, false if there is none
+	 * @throws IOException if the sidecar can not be read
+	 */
+	public boolean read() throws IOException {
+		if(!indexFile.isFile() || indexFile.length() < HEADER_SIZE)
+			return false;
+		RandomAccessFile file = new RandomAccessFile(indexFile, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, header, 0);
+			header.flip();
+			if(header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != xColumn)
+				return false;
+			int columns = header.getInt();
+			int entries = header.getInt();
+			boolean sorted = header.getInt() != 0;
+			if(columns < 0 || entries < 0 || channel.size() != HEADER_SIZE + 16L*entries)
+				return false;
+			if(header.getLong() != source.length() || header.getLong() != source.lastModified() || header.getLong() != TableCache.checksum(source))
+				return false;
+
+			ByteBuffer data = ByteBuffer.allocate(16*entries).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, data, HEADER_SIZE);
+			data.flip();
+			this.columnCount = columns;
+			this.isSorted = sorted;
+			this.entryCount = entries;
+			this.xValues = new double[Math.max(1, entries)];
+			this.positions = new long[Math.max(1, entries)];
+			for(int k = 0; k < entries; k++) {
+				xValues[k] = data.getDouble();
+				positions[k] = data.getLong();
+			}
+			return true;
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * writes the index to the sidecar, the sidecar is written to a temporary file with a unique name first and then
+	 * renamed, so several readers of the same table do not disturb each other
+	 * @throws IOException if the sidecar can not be written
+	 */
+	public void write() throws IOException {
+		File temporaryFile = File.createTempFile(indexFile.getName() + ".", ".tmp", indexFile.getAbsoluteFile().getParentFile());
+		RandomAccessFile file = new RandomAccessFile(temporaryFile, "rw");
+		boolean isWritten = false;
+		try {
+			file.setLength(0);
+			ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 16*entryCount).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(xColumn);
+			buffer.putInt(columnCount);
+			buffer.putInt(entryCount);
+			buffer.putInt((isSorted)? 1 : 0);
+			buffer.putLong(source.length());
+			buffer.putLong(source.lastModified());
+			buffer.putLong(TableCache.checksum(source));
+			for(int k = 0; k < entryCount; k++) {
+				buffer.putDouble(xValues[k]);
+				buffer.putLong(positions[k]);
+			}
+			buffer.flip();
+			FileChannel channel = file.getChannel();
+			while(buffer.hasRemaining())
+				channel.write(buffer);
+			isWritten = true;
+		} finally {
+			file.close();
+			if(!isWritten)
+				temporaryFile.delete();
+		}
+		if(!temporaryFile.renameTo(indexFile)) {
+			//some systems do not replace existing files on rename
+			indexFile.delete();
+			if(!temporaryFile.renameTo(indexFile)) {
+				temporaryFile.delete();
+				throw new IOException("TableIndex: could not write " + indexFile);
+			}
+		}
+	}
+
+	/**
+	 * @return the sidecar file
+	 */
+	public File getIndexFile() {
+		return indexFile;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if(read < 0)
+				throw new IOException("TableIndex: unexpected end of file");
+			position += read;
+		}
+	}
+}
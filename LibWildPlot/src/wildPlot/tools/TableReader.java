@@ -1,12 +1,20 @@
 /**
- * 
+ *
  */
 package wildPlot.tools;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import wildPlot.rendering.interfaces.ColumnTable;
 
 /**
  * This class can read Data files for providing 2xn or 3xn array for use in PointDrawer2D and LinesPoints drawer
@@ -15,9 +23,67 @@ import java.io.IOException;
  */
 public class TableReader {
 	private double[][] table = new double[3][];
-	
+
 	private String fileName = "";
 
+	/**
+	 * if true the file is memory mapped and its chunks are parsed in parallel
+	 */
+	private boolean isMemoryMapped = false;
+
+	/**
+	 * if true the columns are stored in a binary sidecar after parsing and read from it as long as the file is unchanged
+	 */
+	private boolean isCached = false;
+
+	/**
+	 * sidecar of the last read if the columns are cached
+	 */
+	private TableCache tableCache = null;
+
+	/**
+	 * columns of the file that are read in this order, null for all columns
+	 */
+	private int[] projection = null;
+
+	/**
+	 * lowest and highest x-value of the rows that are read, null for all rows
+	 */
+	private double[] xRange = null;
+
+	/**
+	 * if true the column tables store floats instead of doubles
+	 */
+	private boolean isFloat = false;
+
+	/**
+	 * size of the chunks the file is read in
+	 */
+	private static final int READ_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * a memory mapped file is split into at least this large chunks that are parsed in parallel
+	 */
+	private static final long MIN_CHUNK_SIZE = 1L << 22;
+
+	/**
+	 * the chunks of a memory mapped file are mapped in windows of at most this size
+	 */
+	private static final long MAP_WINDOW_SIZE = 1L << 26;
+
+	/**
+	 * number of rows that are parsed on the heap before they are appended to the sidecar or the buffers of an off-heap table
+	 */
+	private static final int BLOCK_SIZE = 1 << 16;
+
+	/**
+	 * powers of ten that are exactly representable as double values
+	 */
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
 	/**
 	 * Constructor of TableReader
 	 * @param fileName file that contains table with point or BarGraph data
@@ -26,49 +92,1175 @@ public class TableReader {
 		super();
 		this.fileName = fileName;
 	}
-	
+
 	/**
-	 * This method reads from table file and returns an array containing points data
+	 * This method reads from table file and returns an array containing points data.
+	 * The columns of the table are separated by tabs or spaces, the first line determines the number of columns,
+	 * columns beyond that are ignored and empty lines are skipped. If a projection or an x-range is set only the
+	 * selected columns and rows are returned.
 	 * @return array with point data
-	 * @throws IOException 
+	 * @throws IOException if the file can not be read or a line has less columns than the first one
 	 */
 	public double[][] getPointArray() throws IOException{
+		if(!isCached) {
+			table = parseTable(true, null);
+			return table;
+		}
+		//an index of sorted x-values lets the rows of the x-range be read without the sidecar of the whole table
+		TableIndex index = null;
+		if(xRange != null && !CompressedInputStream.isCompressed(fileName)) {
+			index = readIndex();
+			if(index != null && index.isSorted()) {
+				table = readIndexedTable(index);
+				return table;
+			}
+		}
+		tableCache = new TableCache(fileName);
+		try {
+			table = tableCache.read();
+		} catch (IOException e) {
+			//a damaged sidecar is replaced
+			table = null;
+		}
+		if(table == null) {
+			//the index is only written if there was no current one, an index of unsorted x-values stays as it is
+			TableIndex newIndex = null;
+			if(xRange != null && index == null && !CompressedInputStream.isCompressed(fileName))
+				newIndex = new TableIndex(fileName, getXColumn());
+			table = parseTable(false, newIndex);
+			try {
+				tableCache.write(table);
+			} catch (IOException e) {
+				System.err.println("TableReader:Warning::Could not write cache file " + tableCache.getCacheFile());
+			}
+		}
+		//the sidecar holds the whole table
+		table = select(table);
+		return table;
+	}
+
+	/**
+	 * This method returns the columns of the table file outside of the heap. If the reader is cached the columns are
+	 * mapped from the binary sidecar of the file, if there is no valid sidecar the file is parsed in one thread and
+	 * written to the sidecar block by block, so the size of the table is not limited by the heap. With a projection or
+	 * an x-range the cached table is copied from the sidecar. A reader that is not cached parses the file in one thread
+	 * and appends it block by block to direct buffers, which is also done if the sidecar can not be written.
+	 * @return columns of the table
+	 * @throws IOException if the file can not be read or a line has less columns than the first one
+	 * @see wildPlot.tools.TableCache
+	 */
+	public ColumnTable getColumnTable() throws IOException {
+		if(!isCached)
+			return readColumnTable();
+		//the sidecar always holds the whole table, the selected rows and columns are copied from the parsed arrays
+		if(projection != null || xRange != null)
+			return OffHeapColumnTable.allocate(getPointArray(), isFloat);
+		tableCache = new TableCache(fileName, isFloat);
+		ColumnTable columnTable = null;
+		try {
+			columnTable = tableCache.map();
+		} catch (IOException e) {
+			//a damaged sidecar is replaced
+			columnTable = null;
+		}
+		if(columnTable != null)
+			return columnTable;
+
+		TableCache.ColumnWriter writer = tableCache.new ColumnWriter();
+		InputStream in = openFile();
+		try {
+			byte[] buffer = new byte[READ_BUFFER_SIZE];
+			TableParser parser = new TableParser(writer, BLOCK_SIZE);
+			int read;
+			while(!writer.hasFailed() && (read = in.read(buffer)) >= 0)
+				parser.parse(buffer, read);
+			if(!writer.hasFailed())
+				parser.finish();
+			try {
+				writer.close();
+				columnTable = tableCache.map();
+			} catch (IOException e) {
+				columnTable = null;
+			}
+		} finally {
+			in.close();
+			writer.delete();
+		}
+		if(columnTable == null) {
+			System.err.println("TableReader:Warning::Could not write cache file " + tableCache.getCacheFile());
+			return readColumnTable();
+		}
+		return columnTable;
+	}
+
+	/**
+	 * parses the selected columns and rows of the file in one thread and appends them block by block to direct
+	 * buffers, so only one block of the table is held on the heap
+	 * @return columns of the table
+	 * @throws IOException if the file can not be read or a line has less columns than the first one
+	 */
+	private ColumnTable readColumnTable() throws IOException {
+		OffHeapColumnTable.Builder builder = new OffHeapColumnTable.Builder(isFloat);
+		TableParser parser = new TableParser(builder, BLOCK_SIZE);
+		parser.select(projection, xRange, false);
+		InputStream in = openFile();
+		try {
+			byte[] buffer = new byte[READ_BUFFER_SIZE];
+			int read;
+			while((read = in.read(buffer)) >= 0)
+				parser.parse(buffer, read);
+			parser.finish();
+		} finally {
+			in.close();
+		}
+		return builder.build();
+	}
+
+	/**
+	 * This method opens the table file for reading it in chunks of rows, so the first rows can be used before the whole
+	 * file is read. Only the current chunks are held on the heap, consumers that keep aggregates only need bounded memory.
+	 * @param chunkSize number of rows of a chunk, the last chunk may have less
+	 * @return stream of the chunks, it has to be closed after use
+	 * @throws IOException if the file can not be opened
+	 */
+	public RowChunkStream openRowChunks(int chunkSize) throws IOException {
+		if(chunkSize < 1){
+			System.err.println("TableReader:Error::Wrong chunk size (smaller than 1)");
+			System.exit(-1);
+		}
+		return new RowChunkStream(openFile(), chunkSize);
+	}
+
+	/**
+	 * This method opens the table file for following it while other processes append rows to it. Every poll of the
+	 * returned tail parses only the bytes that were appended since the last poll and appends their complete lines to a
+	 * ring buffer that holds the newest rows, the first poll reads the rows that are already in the file.
+	 * @param capacity number of the newest rows that are held
+	 * @return tail of the file, it has to be closed after use
+	 * @throws IOException if the file can not be opened or is compressed
+	 * @see wildPlot.tools.RingColumnTable
+	 */
+	public TableTail openTail(int capacity) throws IOException {
+		if(CompressedInputStream.isCompressed(fileName))
+			throw new IOException("TableReader: compressed file " + fileName + " can not be followed");
+		return new TableTail(new RandomAccessFile(fileName, "r"), new RingColumnTable(capacity));
+	}
+
+	/**
+	 * parses the table file in the chosen mode
+	 * @param isFiltered if true only the selected columns and the rows of the x-range are parsed
+	 * @param index index that is built while the file is parsed and written afterwards, null if none is built,
+	 * a memory mapped file builds no index
+	 * @return columns of the table
+	 * @throws IOException if the file can not be read or a line has less columns than the first one
+	 */
+	private double[][] parseTable(boolean isFiltered, TableIndex index) throws IOException {
+		boolean isCompressed = CompressedInputStream.isCompressed(fileName);
+		if(isFiltered && xRange != null && !isCompressed) {
+			TableIndex currentIndex = readIndex();
+			if(currentIndex != null && currentIndex.isSorted())
+				return readIndexedTable(currentIndex);
+		}
+		//a compressed file can not be split into chunks, it is decompressed and parsed in a pipeline instead
+		if(isMemoryMapped && !isCompressed)
+			return readMappedTable(isFiltered);
+		TableParser parser = new TableParser(-1);
+		if(isFiltered)
+			parser.select(projection, xRange, false);
+		if(index != null)
+			parser.setIndex(index, getXColumn());
+		InputStream in = openFile();
+		try {
+			double[][] columns = readTable(in, parser);
+			if(index != null) {
+				index.setColumnCount(parser.getColumnCount());
+				try {
+					index.write();
+				} catch (IOException e) {
+					System.err.println("TableReader:Warning::Could not write index file " + index.getIndexFile());
+				}
+			}
+			return columns;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * reads the index of the file for the current x-column
+	 * @return the index, null if there is no current index or it is damaged
+	 * @see wildPlot.tools.TableIndex
+	 */
+	private TableIndex readIndex() {
+		TableIndex index = new TableIndex(fileName, getXColumn());
+		try {
+			return (index.read())? index : null;
+		} catch (IOException e) {
+			//a damaged index is replaced by the next cached read
+			return null;
+		}
+	}
+
+	/**
+	 * reads the rows of the x-range with the help of the index of the file, the reading starts at the position the
+	 * index gives for the start of the range and stops at the first row beyond it
+	 * @param index index of the file whose x-values are sorted
+	 * @return columns of the table
+	 * @throws IOException if the file can not be read or a line has less columns than the first one
+	 * @see wildPlot.tools.TableIndex
+	 */
+	private double[][] readIndexedTable(TableIndex index) throws IOException {
+		if(index.getColumnCount() == 0)
+			return new double[0][];
+		TableParser parser = new TableParser(index.getColumnCount());
+		parser.select(projection, xRange, true);
+		FileInputStream in = new FileInputStream(fileName);
+		try {
+			in.getChannel().position(index.seek(xRange[0]));
+			byte[] buffer = new byte[READ_BUFFER_SIZE];
+			int read;
+			while(!parser.isPastRange() && (read = in.read(buffer)) >= 0)
+				parser.parse(buffer, read);
+			//a line that is cut off after the end of the range is not needed
+			if(!parser.isPastRange())
+				parser.finish();
+			return parser.getColumns();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * opens the table file as a stream, gzip compressed files are decompressed on other threads while they are read
+	 * @return stream of the uncompressed table
+	 * @throws IOException if the file can not be opened
+	 * @see wildPlot.tools.CompressedInputStream
+	 */
+	private InputStream openFile() throws IOException {
+		if(CompressedInputStream.isCompressed(fileName))
+			return new CompressedInputStream(fileName);
+		return new FileInputStream(fileName);
+	}
+
+	/**
+	 * reads the table in one pass, the values are appended to column buffers that grow as needed and are cut to the
+	 * number of lines at the end
+	 * @param in stream of the table file
+	 * @param parser parser for the whole file
+	 * @return columns of the table
+	 * @throws IOException if the stream can not be read or a line has less columns than the first one
+	 */
+	private double[][] readTable(InputStream in, TableParser parser) throws IOException {
+		byte[] buffer = new byte[READ_BUFFER_SIZE];
+		int read;
+		while((read = in.read(buffer)) >= 0)
+			parser.parse(buffer, read);
+		parser.finish();
+		return parser.getColumns();
+	}
+
+	/**
+	 * reads the table from the memory mapped file, the file is split into chunks of whole lines that are parsed in
+	 * parallel, afterwards the columns of all chunks are concatenated
+	 * @param isFiltered if true only the selected columns and the rows of the x-range are parsed
+	 * @return columns of the table
+	 * @throws IOException if the file can not be read or a line has less columns than the first one
+	 */
+	private double[][] readMappedTable(boolean isFiltered) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			long size = channel.size();
+			int columnCount = countColumns(channel);
+			if(columnCount == 0)
+				return new double[0][];
+
+			//a few chunks per thread, so threads that finish early take over the rest
+			int threadCount = Runtime.getRuntime().availableProcessors();
+			long chunkSize = Math.max(MIN_CHUNK_SIZE, size/(4L*threadCount) + 1);
+			int chunkCount = (int)((size + chunkSize - 1)/chunkSize);
+			long[] chunkStarts = new long[chunkCount + 1];
+			for(int k = 1; k < chunkCount; k++)
+				chunkStarts[k] = Math.max(chunkStarts[k-1], lineStart(channel, k*chunkSize));
+			chunkStarts[chunkCount] = size;
+
+			ChunkReader chunkReader = new ChunkReader(channel, chunkStarts, columnCount);
+			if(isFiltered) {
+				for(TableParser parser : chunkReader.parsers)
+					parser.select(projection, xRange, false);
+			}
+			chunkReader.runParallel(Math.min(threadCount, chunkCount));
 
-			BufferedReader br = new BufferedReader(new FileReader(fileName));
-			//check line count
 			int lines = 0;
-			int collumns = 0;
-			String line = "";
-			line = br.readLine();
-			if(line != null) {
-				lines++;
-				collumns = line.split("\\t").length;
+			for(TableParser parser : chunkReader.parsers)
+				lines += parser.getLineCount();
+			int selectedCount = chunkReader.parsers[0].getColumnBuffers().length;
+			double[][] columns = new double[selectedCount][lines];
+			int position = 0;
+			for(TableParser parser : chunkReader.parsers) {
+				double[][] chunkColumns = parser.getColumnBuffers();
+				for(int k = 0; k < selectedCount; k++)
+					System.arraycopy(chunkColumns[k], 0, columns[k], position, parser.getLineCount());
+				position += parser.getLineCount();
+			}
+			return columns;
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * @return number of columns of the first line that is not empty, 0 if there is none
+	 */
+	private int countColumns(FileChannel channel) throws IOException {
+		TableParser parser = new TableParser(-1);
+		ByteBuffer block = ByteBuffer.allocate(4096);
+		long position = 0;
+		while(parser.getLineCount() == 0) {
+			block.clear();
+			int read = channel.read(block, position);
+			if(read < 0) {
+				parser.finish();
+				break;
+			}
+			parser.parse(block.array(), read);
+			position += read;
+		}
+		return parser.getColumnCount();
+	}
+
+	/**
+	 * @return start of the first line that starts at or after position, the size of the file if there is none
+	 */
+	private static long lineStart(FileChannel channel, long position) throws IOException {
+		ByteBuffer block = ByteBuffer.allocate(4096);
+		//the line starts at position if the byte before is a line break
+		long blockStart = position - 1;
+		while(true) {
+			block.clear();
+			int read = channel.read(block, blockStart);
+			if(read < 0)
+				return channel.size();
+			for(int i = 0; i < read; i++) {
+				if(block.get(i) == '\n')
+					return blockStart + i + 1;
+			}
+			blockStart += read;
+		}
+	}
+
+	/**
+	 * parses the chunks of a memory mapped file, every thread takes the next chunk that is not parsed yet
+	 */
+	private class ChunkReader implements Runnable {
+
+		private FileChannel channel;
+		private long[] chunkStarts;
+		private AtomicInteger nextChunk = new AtomicInteger(0);
+
+		/**
+		 * parser of every chunk, holding its columns
+		 */
+		private TableParser[] parsers;
+
+		/**
+		 * first error of any thread, it is thrown after all threads are finished
+		 */
+		private Exception error = null;
+
+		/**
+		 * @param channel channel of the file
+		 * @param chunkStarts start of every chunk and the end of the last one
+		 * @param columnCount number of columns of the table
+		 */
+		public ChunkReader(FileChannel channel, long[] chunkStarts, int columnCount) {
+			super();
+			this.channel = channel;
+			this.chunkStarts = chunkStarts;
+			this.parsers = new TableParser[chunkStarts.length - 1];
+			for(int k = 0; k < parsers.length; k++)
+				parsers[k] = new TableParser(columnCount);
+		}
+
+		@Override
+		public void run() {
+			byte[] buffer = new byte[READ_BUFFER_SIZE];
+			int chunk;
+			while((chunk = nextChunk.getAndIncrement()) < parsers.length && getError() == null) {
+				try {
+					for(long start = chunkStarts[chunk]; start < chunkStarts[chunk+1]; start += MAP_WINDOW_SIZE) {
+						long length = Math.min(MAP_WINDOW_SIZE, chunkStarts[chunk+1] - start);
+						MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+						while(window.hasRemaining()) {
+							int count = Math.min(window.remaining(), buffer.length);
+							window.get(buffer, 0, count);
+							parsers[chunk].parse(buffer, count);
+						}
+					}
+					parsers[chunk].finish();
+				} catch (IOException e) {
+					setError(e);
+				} catch (RuntimeException e) {
+					setError(e);
+				}
+			}
+		}
+
+		private synchronized Exception getError() {
+			return error;
+		}
+
+		private synchronized void setError(Exception e) {
+			if(error == null)
+				error = e;
+		}
+
+		/**
+		 * parses all chunks with the given number of threads including the calling one
+		 * @throws IOException if a chunk could not be read or parsed
+		 */
+		public void runParallel(int threadCount) throws IOException {
+			Thread[] threads = new Thread[threadCount - 1];
+			for(int i = 0; i < threads.length; i++) {
+				threads[i] = new Thread(this);
+				threads[i].start();
+			}
+			run();
+			for(Thread thread : threads) {
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					throw new IOException("TableReader: interrupted while reading " + fileName);
+				}
+			}
+			Exception e = getError();
+			if(e instanceof IOException)
+				throw (IOException)e;
+			if(e != null)
+				throw (RuntimeException)e;
+		}
+	}
+
+	/**
+	 * receives the rows of a table block by block while it is parsed
+	 */
+	interface BlockWriter {
+
+		/**
+		 * @param columns columns of the block, they are reused for the next block
+		 * @param rowCount number of rows of the block, only the first rowCount values of every column are used
+		 * @throws IOException if the block can not be written
+		 */
+		public void append(double[][] columns, int rowCount) throws IOException;
+	}
+
+	/**
+	 * This class reads a table in chunks of rows, every chunk is parsed when it is requested
+	 */
+	public class RowChunkStream implements BlockWriter {
+
+		private InputStream in;
+		private byte[] buffer = new byte[READ_BUFFER_SIZE];
+		private TableParser parser;
+		private boolean isFinished = false;
+
+		/**
+		 * chunks that are parsed but not requested yet, one piece of the file may contain several chunks
+		 */
+		private LinkedList<double[][]> chunks = new LinkedList<double[][]>();
+
+		private RowChunkStream(InputStream in, int chunkSize) throws IOException {
+			super();
+			this.in = in;
+			this.parser = new TableParser(this, chunkSize);
+			parser.select(projection, xRange, false);
+		}
+
+		/**
+		 * reads the next chunk of rows
+		 * @return columns of the chunk, all of the same length, null if the end of the file is reached
+		 * @throws IOException if the file can not be read or a line has less columns than the first one
+		 */
+		public double[][] nextChunk() throws IOException {
+			while(chunks.isEmpty() && !isFinished) {
+				int read = in.read(buffer);
+				if(read < 0) {
+					parser.finish();
+					isFinished = true;
+				} else {
+					parser.parse(buffer, read);
+				}
 			}
-			while((line = br.readLine())!= null){
+			return chunks.poll();
+		}
+
+		/**
+		 * closes the file
+		 * @throws IOException if the file can not be closed
+		 */
+		public void close() throws IOException {
+			in.close();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see wildPlot.tools.TableReader.BlockWriter#append(double[][], int)
+		 */
+		@Override
+		public void append(double[][] columns, int rowCount) {
+			double[][] chunk = new double[columns.length][];
+			for(int k = 0; k < columns.length; k++)
+				chunk[k] = Arrays.copyOf(columns[k], rowCount);
+			chunks.add(chunk);
+		}
+	}
+
+	/**
+	 * This class follows a table file that grows, the file is polled for its length because there is no notification
+	 * of file changes. A line is only used after its line break is written. If the file gets shorter it was truncated
+	 * or replaced and is read anew from its start.
+	 */
+	public class TableTail implements BlockWriter {
+
+		private RandomAccessFile file;
+		private RingColumnTable table;
+		private byte[] buffer = new byte[READ_BUFFER_SIZE];
+		private TableParser parser;
+
+		/**
+		 * number of bytes that are parsed
+		 */
+		private long position = 0;
+
+		/**
+		 * number of rows appended by the current poll
+		 */
+		private int polledRows = 0;
+
+		private TableTail(RandomAccessFile file, RingColumnTable table) throws IOException {
+			super();
+			this.file = file;
+			this.table = table;
+			this.parser = new TableParser(this, BLOCK_SIZE);
+			parser.select(projection, xRange, false);
+		}
+
+		/**
+		 * parses the bytes that were appended to the file since the last poll
+		 * @return number of rows that were appended to the table, -1 if the file was truncated and the table was cleared
+		 * before the rows of the file were appended anew
+		 * @throws IOException if the file can not be read or a line has less columns than the first one
+		 */
+		public int poll() throws IOException {
+			long length = file.length();
+			boolean isTruncated = length < position;
+			if(isTruncated) {
+				position = 0;
+				parser = new TableParser(this, BLOCK_SIZE);
+				parser.select(projection, xRange, false);
+				table.clear();
+			}
+			polledRows = 0;
+			file.seek(position);
+			while(position < length) {
+				int read = file.read(buffer, 0, (int)Math.min(buffer.length, length - position));
+				if(read < 0)
+					break;
+				parser.parse(buffer, read);
+				position += read;
+			}
+			parser.flush();
+			return (isTruncated)? -1 : polledRows;
+		}
+
+		/**
+		 * @return ring buffer with the newest rows of the file
+		 */
+		public RingColumnTable getTable() {
+			return table;
+		}
+
+		/**
+		 * closes the file
+		 * @throws IOException if the file can not be closed
+		 */
+		public void close() throws IOException {
+			file.close();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see wildPlot.tools.TableReader.BlockWriter#append(double[][], int)
+		 */
+		@Override
+		public void append(double[][] columns, int rowCount) {
+			table.append(columns, rowCount);
+			polledRows += rowCount;
+		}
+	}
+
+	/**
+	 * parses bytes of a table into columns, the bytes may be given in pieces of any size. The values are appended to
+	 * column buffers that grow as needed.
+	 */
+	private class TableParser {
+
+		/**
+		 * characters of the current field, fields may span two pieces
+		 */
+		private byte[] field = new byte[64];
+		private int fieldLength = 0;
+
+		/**
+		 * until the end of the first line the number of columns may be unknown, so its values are collected in one row
+		 */
+		private double[] firstRow = new double[8];
+		private double[][] columns = null;
+		private int columnCount = 0;
+		private int capacity = 1024;
+		private int lines = 0;
+		private int column = 0;
+
+		/**
+		 * if not null, full column buffers are given to the writer instead of growing
+		 */
+		private BlockWriter writer = null;
+
+		/**
+		 * column of the parsed columns every column of the file is stored in, -1 for columns that are not parsed,
+		 * null if all columns are parsed
+		 */
+		private int[] slots = null;
+		private int[] projection = null;
+
+		/**
+		 * column of the file that holds the x-values and the range of the rows that are kept, null for all rows
+		 */
+		private int xColumn = 0;
+		private double[] xRange = null;
+
+		/**
+		 * if true the x-values are known to be sorted, so no row after the first one beyond the x-range is kept
+		 */
+		private boolean isSorted = false;
+		private boolean isPastRange = false;
+
+		/**
+		 * state of the current field and line, the fields of a rejected line are not parsed
+		 */
+		private boolean isInField = false;
+		private boolean isSkipping = false;
+		private boolean isRejected = false;
+		private double lineX = Double.NaN;
+
+		/**
+		 * number of bytes parsed before the current piece and position of the current line, used for the index
+		 */
+		private long position = 0;
+		private long lineStart = 0;
+		private TableIndex index = null;
+
+		/**
+		 * @param columnCount number of columns, -1 if the first line determines it
+		 */
+		public TableParser(int columnCount) {
+			super();
+			if(columnCount >= 0) {
+				this.columnCount = columnCount;
+				this.columns = new double[columnCount][capacity];
+			}
+		}
+
+		/**
+		 * creates a parser that gives the columns to a writer in blocks, so only one block is held on the heap,
+		 * the first line determines the number of columns
+		 * @param writer receiver of the blocks
+		 * @param blockSize number of rows of a block
+		 */
+		public TableParser(BlockWriter writer, int blockSize) {
+			this(-1);
+			this.writer = writer;
+			this.capacity = blockSize;
+		}
+
+		/**
+		 * restricts the parsed columns and rows, this must be called before the first piece is parsed
+		 * @param projection columns of the file that are parsed in this order, null for all columns
+		 * @param xRange lowest and highest x-value of the rows that are kept, null for all rows
+		 * @param isSorted if true the x-values are sorted and parsing can stop at the first row beyond xRange
+		 * @throws IOException if the number of columns is known and a projected column is not part of the file
+		 */
+		public void select(int[] projection, double[] xRange, boolean isSorted) throws IOException {
+			this.projection = projection;
+			this.xRange = xRange;
+			this.isSorted = isSorted;
+			this.xColumn = (projection == null)? 0 : projection[0];
+			if(projection != null) {
+				int maximum = 0;
+				for(int k = 0; k < projection.length; k++)
+					maximum = Math.max(maximum, projection[k]);
+				slots = new int[maximum + 1];
+				Arrays.fill(slots, -1);
+				for(int k = 0; k < projection.length; k++)
+					slots[projection[k]] = k;
+			}
+			if(columns != null) {
+				checkProjection();
+				columns = new double[getSelectedCount()][capacity];
+			}
+		}
+
+		/**
+		 * @param index index that is given every row while the file is parsed from its start
+		 * @param xColumn column of the file that holds the x-values of the index
+		 */
+		public void setIndex(TableIndex index, int xColumn) {
+			this.index = index;
+			this.xColumn = xColumn;
+		}
+
+		/**
+		 * @return true if the x-values are sorted and a row beyond the x-range was parsed, the rest of the file can
+		 * be left out
+		 */
+		public boolean isPastRange() {
+			return isPastRange;
+		}
+
+		private void checkProjection() throws IOException {
+			if(projection == null)
+				return;
+			for(int k = 0; k < projection.length; k++) {
+				if(projection[k] >= columnCount)
+					throw new IOException("TableReader: " + fileName + " has no column " + projection[k] + ", only " + columnCount + " columns");
+			}
+		}
+
+		/**
+		 * @return number of columns that are parsed
+		 */
+		private int getSelectedCount() {
+			return (projection == null)? columnCount : projection.length;
+		}
+
+		/**
+		 * @return column the values of the given column of the file are stored in, -1 if it is not parsed
+		 */
+		private int slot(int column) {
+			if(slots == null)
+				return (column < columnCount)? column : -1;
+			return (column < slots.length)? slots[column] : -1;
+		}
+
+		/**
+		 * rejects the current line if its x-value is not in the x-range
+		 */
+		private void checkX(double x) {
+			lineX = x;
+			if(xRange == null || (x >= xRange[0] && x <= xRange[1]))
+				return;
+			isRejected = true;
+			if(isSorted && x > xRange[1])
+				isPastRange = true;
+		}
+
+		/**
+		 * parses the next bytes of the table
+		 * @param buffer bytes of the table
+		 * @param length number of bytes of buffer that are used
+		 * @throws IOException if a line has less columns than the first one
+		 */
+		public void parse(byte[] buffer, int length) throws IOException {
+			for(int i = 0; i < length; i++) {
+				byte c = buffer[i];
+				if(c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+					if(!isInField) {
+						isInField = true;
+						isSkipping = columns != null && (isRejected || slot(column) < 0);
+					}
+					if(isSkipping)
+						continue;
+					if(fieldLength == field.length)
+						field = Arrays.copyOf(field, 2*field.length);
+					field[fieldLength++] = c;
+					continue;
+				}
+				if(isInField) {
+					isInField = false;
+					if(!isSkipping) {
+						double value = parseDouble(field, 0, fieldLength);
+						if(columns == null) {
+							if(column == firstRow.length)
+								firstRow = Arrays.copyOf(firstRow, 2*firstRow.length);
+							firstRow[column] = value;
+						} else {
+							columns[slot(column)][lines] = value;
+							if(column == xColumn)
+								checkX(value);
+						}
+					}
+					fieldLength = 0;
+					column++;
+				}
+				if(c != '\n')
+					continue;
+				if(column == 0) {
+					lineStart = position + i + 1;
+					continue;
+				}
+
+				//end of a line that is not empty
+				if(columns == null) {
+					columnCount = column;
+					checkProjection();
+					columns = new double[getSelectedCount()][capacity];
+					for(int k = 0; k < columns.length; k++)
+						columns[k][0] = firstRow[(projection == null)? k : projection[k]];
+					//a missing x-column is only reported by the projection, the index is not sorted then
+					checkX((xColumn < columnCount)? firstRow[xColumn] : Double.NaN);
+				} else if(column < columnCount) {
+					throw new IOException("TableReader: a row of " + fileName + " has " + column + " instead of " + columnCount + " columns");
+				}
+				if(index != null)
+					index.addRow(lineX, lineStart);
+				lineStart = position + i + 1;
+				column = 0;
+				if(isRejected) {
+					isRejected = false;
+					continue;
+				}
 				lines++;
+				if(lines == capacity && writer != null) {
+					writer.append(columns, lines);
+					lines = 0;
+				} else if(lines == capacity) {
+					capacity *= 2;
+					for(int k = 0; k < columns.length; k++)
+						columns[k] = Arrays.copyOf(columns[k], capacity);
+				}
 			}
-			br.close();
-			table = new double[collumns][];
-			//now read data
-			br = new BufferedReader(new FileReader(fileName));
-			for(int i = 0; i<collumns; i++){
-				table[i] = new double[lines];
-			}
-			
-			int lineNr = 0;
-			while((line = br.readLine())!= null){
-				String[] dataExtraction = line.split("\\t");
-				
-				for(int i = 0; i<collumns; i++){
-					table[i][lineNr] = Double.parseDouble(dataExtraction[i]);
+			position += length;
+		}
+
+		/**
+		 * ends the last line, it may end without a line break
+		 * @throws IOException if the last line has less columns than the first one
+		 */
+		public void finish() throws IOException {
+			parse(new byte[]{'\n'}, 1);
+			if(writer != null && lines > 0) {
+				writer.append(columns, lines);
+				lines = 0;
+			}
+		}
+
+		/**
+		 * gives the lines that are parsed completely to the writer, a line that is not complete yet is kept
+		 * @throws IOException if the lines can not be written
+		 */
+		public void flush() throws IOException {
+			if(writer == null || lines == 0)
+				return;
+			writer.append(columns, lines);
+			//the values of the line that is not complete yet, values that are not parsed yet are overwritten later
+			for(int k = 0; k < columns.length; k++)
+				columns[k][0] = columns[k][lines];
+			lines = 0;
+		}
+
+		/**
+		 * @return number of lines that are parsed completely
+		 */
+		public int getLineCount() {
+			return lines;
+		}
+
+		/**
+		 * @return number of columns, 0 if there was no line yet
+		 */
+		public int getColumnCount() {
+			return columnCount;
+		}
+
+		/**
+		 * @return column buffers, only the first getLineCount() values of every column are used
+		 */
+		public double[][] getColumnBuffers() {
+			return (columns == null)? new double[0][] : columns;
+		}
+
+		/**
+		 * @return columns cut to the number of lines
+		 */
+		public double[][] getColumns() {
+			double[][] result = getColumnBuffers();
+			for(int k = 0; k < result.length; k++)
+				result[k] = Arrays.copyOf(result[k], lines);
+			return result;
+		}
+	}
+
+	/**
+	 * memory map the file and parse it in parallel, this is faster for large files on fast storage,
+	 * gzip compressed files are read as a stream
+	 */
+	public void setMemoryMapped() {
+		this.isMemoryMapped = true;
+	}
+
+	/**
+	 * read the file as a stream in one thread (standard behavior)
+	 */
+	public void unsetMemoryMapped() {
+		this.isMemoryMapped = false;
+	}
+
+	/**
+	 * @return true if the file is memory mapped and parsed in parallel
+	 */
+	public boolean isMemoryMapped() {
+		return isMemoryMapped;
+	}
+
+	/**
+	 * store the columns in a binary sidecar next to the file after parsing, later reads of the unchanged file load the
+	 * sidecar instead of parsing
+	 * @see wildPlot.tools.TableCache
+	 */
+	public void setCached() {
+		this.isCached = true;
+	}
+
+	/**
+	 * always parse the file (standard behavior)
+	 */
+	public void unsetCached() {
+		this.isCached = false;
+	}
+
+	/**
+	 * @return true if the columns are cached in a sidecar
+	 */
+	public boolean isCached() {
+		return isCached;
+	}
+
+	/**
+	 * read only the given columns of the file in the given order, the fields of the other columns are not parsed.
+	 * The first of them is the x-column of the x-range.
+	 * @param columns indices of the columns in the file
+	 */
+	public void setProjection(int... columns) {
+		if(columns.length == 0){
+			System.err.println("TableReader:Error::Wrong projection (no columns)");
+			System.exit(-1);
+		}
+		for(int k = 0; k < columns.length; k++) {
+			for(int j = 0; j < k; j++) {
+				if(columns[j] == columns[k]){
+					System.err.println("TableReader:Error::Wrong projection (column " + columns[k] + " is used twice)");
+					System.exit(-1);
 				}
-				lineNr++;
 			}
-			br.close();
+			if(columns[k] < 0){
+				System.err.println("TableReader:Error::Wrong projection (column smaller than 0)");
+				System.exit(-1);
+			}
+		}
+		this.projection = columns.clone();
+	}
 
-		
-		return table;
+	/**
+	 * read all columns of the file (standard behavior)
+	 */
+	public void unsetProjection() {
+		this.projection = null;
+	}
+
+	/**
+	 * @return true if only some columns of the file are read
+	 */
+	public boolean isProjected() {
+		return projection != null;
 	}
-	
-	
+
+	/**
+	 * read only the rows whose x-value lies in the given range, the other fields of the rows beyond it are not parsed.
+	 * A cached reader stores an index of the file in a sidecar when it parses the file. If the x-values of the file
+	 * never decrease, later reads of the unchanged file start near the first row of the range and stop after its
+	 * last row, also if they are not cached.
+	 * @param xStart lowest x-value
+	 * @param xEnd highest x-value
+	 * @see wildPlot.tools.TableIndex
+	 */
+	public void setXRange(double xStart, double xEnd) {
+		double[] range = {Math.min(xStart, xEnd), Math.max(xStart, xEnd)};
+		this.xRange = range;
+	}
+
+	/**
+	 * read all rows of the file (standard behavior)
+	 */
+	public void unsetXRange() {
+		this.xRange = null;
+	}
+
+	/**
+	 * @return true if only the rows of an x-range are read
+	 */
+	public boolean isXRangeSet() {
+		return xRange != null;
+	}
+
+	/**
+	 * store the values of column tables as floats relative to the middle of the range of their column, this halves the
+	 * memory and the sidecar of the table while the precision is still far below a pixel
+	 * @see #getColumnTable()
+	 */
+	public void setFloat() {
+		this.isFloat = true;
+	}
+
+	/**
+	 * store the values of column tables as doubles (standard behavior)
+	 */
+	public void unsetFloat() {
+		this.isFloat = false;
+	}
+
+	/**
+	 * @return true if column tables store floats
+	 */
+	public boolean isFloat() {
+		return isFloat;
+	}
+
+	/**
+	 * @return column of the file that holds the x-values
+	 */
+	private int getXColumn() {
+		return (projection == null)? 0 : projection[0];
+	}
+
+	/**
+	 * selects the columns and the rows of the x-range from a whole table
+	 * @param columns columns of the whole table
+	 * @return selected columns
+	 * @throws IOException if a selected column is not part of the table
+	 */
+	private double[][] select(double[][] columns) throws IOException {
+		if(projection == null && xRange == null)
+			return columns;
+		double[][] result = columns;
+		if(projection != null) {
+			result = new double[projection.length][];
+			for(int k = 0; k < projection.length; k++) {
+				if(projection[k] >= columns.length)
+					throw new IOException("TableReader: " + fileName + " has no column " + projection[k] + ", only " + columns.length + " columns");
+				result[k] = columns[projection[k]];
+			}
+		}
+		if(xRange == null || result.length == 0)
+			return result;
+		double[] x = result[0];
+		int rows = 0;
+		int[] kept = new int[x.length];
+		for(int row = 0; row < x.length; row++) {
+			if(x[row] >= xRange[0] && x[row] <= xRange[1])
+				kept[rows++] = row;
+		}
+		double[][] selected = new double[result.length][rows];
+		for(int k = 0; k < result.length; k++) {
+			for(int i = 0; i < rows; i++)
+				selected[k][i] = result[k][kept[i]];
+		}
+		return selected;
+	}
+
+	/**
+	 * @param column index of the column
+	 * @return lowest and highest value of the column of the last read, only available if the columns are cached
+	 */
+	public double[] getColumnRange(int column) {
+		if(tableCache == null){
+			System.err.println("TableReader:Error::Column ranges are only available for cached tables");
+			System.exit(-1);
+		}
+		return tableCache.getRange(column);
+	}
+
+	/**
+	 * parses a decimal number like Double.parseDouble but without creating a String. Numbers with at most 18
+	 * significant digits whose value is exactly a double times a power of ten up to 10^22 are calculated directly,
+	 * which is correctly rounded because both factors are exact, all others are given to Double.parseDouble
+	 * @param chars characters of the number in ASCII
+	 * @param offset start of the number
+	 * @param length number of characters
+	 * @return value of the number
+	 * @throws NumberFormatException if the characters are no number
+	 */
+	static double parseDouble(byte[] chars, int offset, int length) {
+		int i = offset;
+		int end = offset + length;
+		boolean isNegative = false;
+		if(i < end && (chars[i] == '-' || chars[i] == '+')) {
+			isNegative = chars[i] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int significantDigits = 0;
+		int exponent = 0;
+		boolean hasDigits = false;
+		boolean isExact = true;
+		for(boolean isFraction = false; i < end; i++) {
+			byte c = chars[i];
+			if(c >= '0' && c <= '9') {
+				hasDigits = true;
+				if(significantDigits == 18) {
+					isExact = false;
+					break;
+				}
+				mantissa = mantissa*10 + (c - '0');
+				if(mantissa != 0)
+					significantDigits++;
+				if(isFraction)
+					exponent--;
+			} else if(c == '.' && !isFraction) {
+				isFraction = true;
+			} else {
+				break;
+			}
+		}
+		if(isExact && hasDigits && i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+			i++;
+			boolean isNegativeExponent = false;
+			if(i < end && (chars[i] == '-' || chars[i] == '+')) {
+				isNegativeExponent = chars[i] == '-';
+				i++;
+			}
+			int explicitExponent = 0;
+			int exponentStart = i;
+			for(; i < end && chars[i] >= '0' && chars[i] <= '9' && explicitExponent < 10000; i++)
+				explicitExponent = explicitExponent*10 + (chars[i] - '0');
+			if(i == exponentStart)
+				isExact = false;
+			exponent += (isNegativeExponent)? -explicitExponent : explicitExponent;
+		}
+
+		if(isExact && hasDigits && i == end) {
+			if(mantissa == 0)
+				return (isNegative)? -0.0 : 0.0;
+			if(mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+				double value = (exponent >= 0)? mantissa*POWERS_OF_TEN[exponent] : mantissa/POWERS_OF_TEN[-exponent];
+				return (isNegative)? -value : value;
+			}
+		}
+		//NaN, Infinity, hexadecimal numbers, more digits or exponents that need rounding
+		char[] text = new char[length];
+		for(int k = 0; k < length; k++)
+			text[k] = (char)(chars[offset + k] & 0xff);
+		return Double.parseDouble(new String(text));
+	}
+
+
 }
@@ -0,0 +1,187 @@
+/**
+ *
+ */
+package wildPlot.tools;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class holds the newest points of a time series in a ring buffer without locks. One thread, e.g. the thread of
+ * a sensor, appends points while others read them. The appending thread claims the slots of new points before it
+ * writes them and publishes the points by counting them after their values are written, so readers never see half
+ * written points. Readers copy the points they need and check afterwards by the claimed slots which of them were
+ * overwritten in the meantime. The values are held as the bits of doubles in atomic arrays, so the writes of a
+ * point can not be moved before its claim and the reads of a copy can not be moved after the check.
+ * Readers can search the points by their x-value as long as the x-values never decrease.
+ *
+ * @see wildPlot.rendering.TimeSeriesDrawer
+ */
+public class TimeSeriesBuffer {
+
+	private int capacity;
+	private AtomicLongArray xValues;
+	private AtomicLongArray yValues;
+
+	/**
+	 * number of points that are appended, a point with the index i is stored at i % capacity
+	 */
+	private AtomicLong end = new AtomicLong(0);
+
+	/**
+	 * number of points that are appended including the ones that are written right now, the points they overwrite
+	 * are not valid anymore
+	 */
+	private AtomicLong claimed = new AtomicLong(0);
+
+	/**
+	 * x-value of the last point, only used by the appending thread
+	 */
+	private double lastX = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * true as long as the x-values never decreased
+	 */
+	private volatile boolean isSorted = true;
+
+	/**
+	 * Constructor of TimeSeriesBuffer
+	 * @param capacity number of the newest points that are held
+	 */
+	public TimeSeriesBuffer(int capacity) {
+		super();
+		if(capacity < 1){
+			System.err.println("TimeSeriesBuffer:Error::Wrong capacity (smaller than 1)");
+			System.exit(-1);
+		}
+		this.capacity = capacity;
+		this.xValues = new AtomicLongArray(capacity);
+		this.yValues = new AtomicLongArray(capacity);
+	}
+
+	/**
+	 * appends a point, the oldest point is overwritten if the buffer is full, this must only be called by one thread
+	 * @param x x-value of the point
+	 * @param y y-value of the point
+	 */
+	public void append(double x, double y) {
+		long end = this.end.get();
+		claimed.set(end + 1);
+		int index = (int)(end % capacity);
+		//lazySet keeps the writes after the claim, readers that see them therefore also see the claim
+		xValues.lazySet(index, Double.doubleToRawLongBits(x));
+		yValues.lazySet(index, Double.doubleToRawLongBits(y));
+		if(x < lastX)
+			isSorted = false;
+		lastX = x;
+		//the values are written before the point is counted, lazySet keeps this order without a full memory barrier
+		this.end.lazySet(end + 1);
+	}
+
+	/**
+	 * appends several points at once, they are published together, this must only be called by one thread
+	 * @param x x-values of the points
+	 * @param y y-values of the points
+	 * @param offset index of the first point in the arrays
+	 * @param count number of points
+	 */
+	public void append(double[] x, double[] y, int offset, int count) {
+		long end = this.end.get();
+		claimed.set(end + count);
+		int first = Math.max(0, count - capacity);
+		for(int i = first; i < count;) {
+			int index = (int)((end + i) % capacity);
+			int length = Math.min(count - i, capacity - index);
+			for(int j = 0; j < length; j++) {
+				xValues.lazySet(index + j, Double.doubleToRawLongBits(x[offset + i + j]));
+				yValues.lazySet(index + j, Double.doubleToRawLongBits(y[offset + i + j]));
+			}
+			i += length;
+		}
+		for(int i = 0; i < count; i++) {
+			if(x[offset + i] < lastX)
+				isSorted = false;
+			lastX = x[offset + i];
+		}
+		this.end.lazySet(end + count);
+	}
+
+	/**
+	 * @return number of points that are appended, including the overwritten ones
+	 */
+	public long getEnd() {
+		return end.get();
+	}
+
+	/**
+	 * @param end number of appended points as returned by getEnd()
+	 * @return index of the oldest point that is held when end points are appended
+	 */
+	public long getStart(long end) {
+		return Math.max(0, end - capacity);
+	}
+
+	/**
+	 * @return number of points that are held at most
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return true if the x-values of the points never decreased, only then points can be searched by their x-value
+	 */
+	public boolean isSorted() {
+		return isSorted;
+	}
+
+	/**
+	 * @param point index of the point
+	 * @return x-value of the point, it may be already overwritten if the point is one of the oldest
+	 */
+	public double getX(long point) {
+		return Double.longBitsToDouble(xValues.get((int)(point % capacity)));
+	}
+
+	/**
+	 * searches the first point with an x-value that is not lower than the given one, the points must be sorted
+	 * @param x x-value to search for
+	 * @param start index of the first point that is searched
+	 * @param end index after the last point that is searched
+	 * @return index of the first point with an x-value not lower than x, end if there is none
+	 */
+	public long search(double x, long start, long end) {
+		while(start < end) {
+			long middle = (start + end) >>> 1;
+			if(getX(middle) < x) {
+				start = middle + 1;
+			} else {
+				end = middle;
+			}
+		}
+		return start;
+	}
+
+	/**
+	 * copies points into the given arrays
+	 * @param start index of the first point
+	 * @param count number of points
+	 * @param x array for the x-values
+	 * @param y array for the y-values
+	 * @return index of the first copied point that was not overwritten while it was copied, the copies of all points
+	 * before it are not valid
+	 */
+	public long read(long start, int count, double[] x, double[] y) {
+		for(int i = 0; i < count;) {
+			int index = (int)((start + i) % capacity);
+			int length = Math.min(count - i, capacity - index);
+			for(int j = 0; j < length; j++) {
+				x[i + j] = Double.longBitsToDouble(xValues.get(index + j));
+				y[i + j] = Double.longBitsToDouble(yValues.get(index + j));
+			}
+			i += length;
+		}
+		//the values are read before the claim is checked, so every overwritten point is recognized by the claim
+		return Math.max(start, getStart(claimed.get()));
+	}
+}